@@ -0,0 +1,55 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures applying each filter to a whole layer, blending a layer against the composite
+ * beneath it, and applying a stack of three filters in one pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+  @Param({"512", "2048"})
+  public int size;
+
+  @Param({"filter-red", "brighten-value", "brighten-intensity", "brighten-luma",
+      "darken-luma", "blend-difference", "blend-multiply", "blend-screen",
+      "brighten-luma+filter-red+darken-value"})
+  public String filter;
+
+  private Layer layer;
+  private Raster composite;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    layer = new Layer("layer", size, size);
+    layer.updateRaster(Synthetic.sticker(size, size, 1.0, 1));
+    layer.setFilter(filter);
+    composite = Synthetic.photo(size, size, 2);
+  }
+
+  /**
+   * Filters the layer into a new raster, leaving the layer's pixels unchanged.
+   */
+  @Benchmark
+  public Raster filteredCopy() {
+    return layer.getFilteredRaster(composite);
+  }
+}
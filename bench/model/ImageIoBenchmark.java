@@ -0,0 +1,79 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading images and exporting the final image in each of the supported image formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageIoBenchmark {
+  @Param({"512", "2048"})
+  public int size;
+
+  @Param({"P3", "P6", "png"})
+  public String format;
+
+  private File image;
+  private File export;
+  private CollageModelImpl model;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    image = Synthetic.imageFile(size, size, format);
+    export = File.createTempFile("export", format.startsWith("P") ? ".ppm" : "." + format);
+
+    model = new CollageModelImpl();
+    model.setPpmFormat(format.startsWith("P") ? format : "P3");
+    model.newProject(size, size);
+    model.addLayer("photo");
+    model.addImageToLayer("photo", image.getPath(), 0, 0);
+    model.addLayer("tint");
+    model.addImageToLayer("tint", image.getPath(), size / 4, size / 4);
+    model.setFilter("tint", "blend-multiply");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    export.delete();
+  }
+
+  /**
+   * Reads the image file into a raster.
+   */
+  @Benchmark
+  public Raster readImage() throws IOException {
+    Image read = new Image(image);
+    read.readImage();
+    return read.getRaster();
+  }
+
+  /**
+   * Renders and saves the final image.
+   */
+  @Benchmark
+  public File saveImage() throws IOException {
+    model.saveImage(export.getPath());
+    return export;
+  }
+}
@@ -0,0 +1,69 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar and vector versions of the compositing and difference loops over a whole
+ * canvas on one thread. The forked JVM is started with the vector module, so this benchmark
+ * needs JDK 17 or later; the vector rows fail to set up if the vector kernels were not built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+  @Param({"512", "2048"})
+  public int size;
+
+  @Param({"scalar", "vector"})
+  public String kernels;
+
+  private PixelKernels impl;
+  private int[] below;
+  private int[] layer;
+  private int[] out;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    impl = kernels.equals("vector") ? PixelKernels.loadVector() : new PixelKernels();
+    if (impl == null) {
+      throw new IllegalStateException("Vector kernels are not available in this JVM");
+    }
+    below = Synthetic.photo(size, size, 1).getData();
+    layer = Synthetic.sticker(size, size, 0.5, 2).getData();
+    out = new int[below.length];
+  }
+
+  /**
+   * Places a half-covered layer over a photo.
+   */
+  @Benchmark
+  public int[] placeOver() {
+    impl.placeOver(below, layer, out, 0, out.length);
+    return out;
+  }
+
+  /**
+   * Blends a layer with a photo by difference.
+   */
+  @Benchmark
+  public int[] difference() {
+    impl.difference(layer, below, out, 0, out.length);
+    return out;
+  }
+}
@@ -0,0 +1,82 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures saving and loading projects in the text and binary project formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectIoBenchmark {
+  @Param({"512", "2048"})
+  public int size;
+
+  @Param({"4"})
+  public int layers;
+
+  @Param({"text", "binary"})
+  public String format;
+
+  private File project;
+  private CollageModelImpl model;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    project = File.createTempFile("project", ".clg");
+    model = new CollageModelImpl();
+    model.setProjectFormat(format);
+    model.newProject(size, size);
+    File image = Synthetic.imageFile(size, size, "P6");
+    for (int k = 0; k < layers; k++) {
+      model.addLayer("layer" + k);
+      model.addImageToLayer("layer" + k, image.getPath(), k * size / 8, k * size / 8);
+    }
+    model.saveProject(project);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    project.delete();
+  }
+
+  /**
+   * Saves the project.
+   */
+  @Benchmark
+  public File saveProject() throws IOException {
+    model.saveProject(project);
+    return project;
+  }
+
+  /**
+   * Loads the project and renders it for display, as opening it in the GUI does, so that
+   * lazily loaded layers are counted.
+   */
+  @Benchmark
+  public BufferedImage loadProject() throws IOException {
+    CollageModelImpl loaded = new CollageModelImpl();
+    loaded.load(project);
+    return loaded.getCollageImage();
+  }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures compositing a project's layers into the final image with Project.layersToImage, both
+ * from scratch and after small edits that the compositor can render incrementally.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+  @Param({"512", "2048"})
+  public int size;
+
+  @Param({"1", "4", "16"})
+  public int layers;
+
+  private Project project;
+  private Layer top;
+  private Layer bottom;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    project = Synthetic.project(size, size, layers);
+    project.layersToImage();
+    top = project.layers.get("layer" + (layers - 1));
+    bottom = project.layers.get("layer0");
+  }
+
+  /**
+   * Renders every layer again, as after loading a project or resizing.
+   */
+  @Benchmark
+  public Raster fullRender() {
+    for (Layer layer : project.layers.values()) {
+      layer.markChanged();
+    }
+    return project.layersToImage();
+  }
+
+  /**
+   * Renders after a brush-sized edit to the top layer.
+   */
+  @Benchmark
+  public Raster smallEditTop() {
+    top.markChanged(size / 2, size / 2 + 16, size / 2, size / 2 + 16);
+    return project.layersToImage();
+  }
+
+  /**
+   * Renders after a brush-sized edit to the bottom layer, which invalidates the layers above.
+   */
+  @Benchmark
+  public Raster smallEditBottom() {
+    bottom.markChanged(size / 2, size / 2 + 16, size / 2, size / 2 + 16);
+    return project.layersToImage();
+  }
+
+  /**
+   * Renders with nothing changed, which should only cost the change tracking.
+   */
+  @Benchmark
+  public Raster unchanged() {
+    return project.layersToImage();
+  }
+}
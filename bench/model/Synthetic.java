@@ -0,0 +1,94 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Generates the images the benchmarks work on, so that they run without any image files.
+ */
+final class Synthetic {
+  private static final String[] FILTERS = {"Normal", "brighten-luma", "darken-value",
+      "filter-red", "blend-multiply", "brighten-intensity", "blend-screen", "filter-blue",
+      "blend-difference", "darken-luma"};
+
+  private Synthetic() {
+  }
+
+  /**
+   * Creates an opaque raster of smooth gradients with some noise, which compresses and filters
+   * more like a photo than pure noise does.
+   */
+  static Raster photo(int height, int width, long seed) {
+    Random random = new Random(seed);
+    Raster raster = new Raster(height, width, 0);
+    int[] data = raster.getData();
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int noise = random.nextInt(16);
+        data[i * width + j] = Raster.pack(i * 255 / Math.max(1, height - 1) + noise,
+                j * 255 / Math.max(1, width - 1) - noise, (i + j + noise) & 0xFF, 255);
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Creates a layer raster that is transparent except for a partly transparent rectangle
+   * covering the given fraction of the canvas.
+   */
+  static Raster sticker(int height, int width, double coverage, long seed) {
+    Raster raster = new Raster(height, width, Raster.pack(255, 255, 255, 0));
+    Raster photo = photo(height, width, seed);
+    int rows = (int) (height * Math.sqrt(coverage));
+    int cols = (int) (width * Math.sqrt(coverage));
+    int top = new Random(seed).nextInt(height - rows + 1);
+    int left = new Random(seed + 1).nextInt(width - cols + 1);
+    for (int i = top; i < top + rows; i++) {
+      for (int j = left; j < left + cols; j++) {
+        int argb = photo.get(i, j);
+        raster.set(i, j, (argb & 0x00FFFFFF) | (96 + (i + j) % 160) << 24);
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Creates a project with the given number of layers over the background. Layers cycle through
+   * the filters, and each covers half the canvas.
+   */
+  static Project project(int height, int width, int layerCount) {
+    Project project = new Project(height, width);
+    for (int k = 0; k < layerCount; k++) {
+      String name = "layer" + k;
+      project.addLayer(name);
+      project.layers.get(name).updateRaster(sticker(height, width, 0.5, k));
+      project.setFilter(name, FILTERS[k % FILTERS.length]);
+    }
+    return project;
+  }
+
+  /**
+   * Writes a photo-like image to a temporary file in the given format: "P3", "P6", or an
+   * ImageIO format name such as "png".
+   */
+  static File imageFile(int height, int width, String format) throws IOException {
+    String suffix = format.startsWith("P") ? ".ppm" : "." + format;
+    File file = File.createTempFile("bench", suffix);
+    file.deleteOnExit();
+    Raster raster = photo(height, width, 42);
+    if (format.equals("P3")) {
+      PpmCodec.writePlain(raster, file);
+    } else if (format.equals("P6")) {
+      PpmCodec.writeRaw(raster, file);
+    } else {
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      image.setRGB(0, 0, width, height, raster.getData(), 0, width);
+      ImageIO.write(image, format, file);
+    }
+    return file;
+  }
+}
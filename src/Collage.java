@@ -1,7 +1,11 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
+import controller.BatchRenderer;
 import controller.CollageController;
 import controller.CollageControllerImpl;
 import controller.CollageGuiController;
@@ -22,6 +26,8 @@ public final class Collage {
   /**
    * This is the main method for the image processing program. A new image processing model, view,
    * and controller is created and the user can type in commands in the command line.
+   * With -batch, every script in a directory or manifest is run in this JVM instead, several at a
+   * time, and the time each took and any failures are reported.
    * @param args the arguments that the program will parse
    */
   public static void main(String[] args) {
@@ -48,6 +54,33 @@ public final class Collage {
         System.exit(1);
       }
       System.exit(0);
+    } else if ((args.length == 2 || args.length == 3) && args[0].equals("-batch")) {
+      int threads = Runtime.getRuntime().availableProcessors();
+      try {
+        if (args.length == 3) {
+          threads = Integer.parseInt(args[2]);
+        }
+        List<Path> scripts = BatchRenderer.findScripts(Paths.get(args[1]));
+        long start = System.nanoTime();
+        List<BatchRenderer.Result> results = new BatchRenderer(scripts, threads).run();
+        BatchRenderer.report(results, System.out);
+        System.out.println("Finished in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        for (BatchRenderer.Result result : results) {
+          if (!result.succeeded()) {
+            System.exit(1);
+          }
+        }
+      } catch (IOException e) {
+        System.err.println("Error reading scripts: " + e.getMessage());
+        System.exit(1);
+      } catch (IllegalArgumentException e) {
+        System.err.println("Invalid number of threads!");
+        System.exit(1);
+      } catch (InterruptedException e) {
+        System.err.println("Batch interrupted!");
+        System.exit(1);
+      }
+      System.exit(0);
     } else {
       System.err.println("Invalid command-line arguments!");
       System.exit(1);
@@ -0,0 +1,235 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.CollageModel;
+import model.CollageModelImpl;
+import view.CollageView;
+import view.CollageViewImpl;
+
+/**
+ * Runs many collage scripts in one JVM, so that rendering a batch of collages pays for starting
+ * the JVM and warming up the JIT once instead of once per script. Scripts run concurrently on a
+ * fixed number of worker threads, each with its own model, view, and controller, and the time
+ * each script took and whether any of its commands failed is reported once they have all run.
+ */
+public class BatchRenderer {
+  private final List<Path> scripts;
+  private final int threads;
+
+  /**
+   * Represents the outcome of running one script.
+   */
+  public static final class Result {
+    private final Path script;
+    private final long millis;
+    private final int failedCommands;
+    private final String output;
+
+    /**
+     * Constructor to create the Result of running a script.
+     *
+     * @param script the path of the script.
+     * @param millis how long the script took to run, in milliseconds.
+     * @param failedCommands the number of commands in the script that failed.
+     * @param output the messages the script's commands rendered, or why it could not be run.
+     */
+    private Result(Path script, long millis, int failedCommands, String output) {
+      this.script = script;
+      this.millis = millis;
+      this.failedCommands = failedCommands;
+      this.output = output;
+    }
+
+    /**
+     * Returns the path of the script.
+     *
+     * @return the path of the script.
+     */
+    public Path getScript() {
+      return script;
+    }
+
+    /**
+     * Returns how long the script took to run, in milliseconds.
+     *
+     * @return the running time in milliseconds.
+     */
+    public long getMillis() {
+      return millis;
+    }
+
+    /**
+     * Returns the number of commands in the script that failed, or -1 if the script could not
+     * be run at all.
+     *
+     * @return the number of failed commands.
+     */
+    public int getFailedCommands() {
+      return failedCommands;
+    }
+
+    /**
+     * Returns whether the script ran with no failed commands.
+     *
+     * @return true if the script succeeded.
+     */
+    public boolean succeeded() {
+      return failedCommands == 0;
+    }
+
+    /**
+     * Returns the messages the script's commands rendered, or why it could not be run.
+     *
+     * @return the script's output.
+     */
+    public String getOutput() {
+      return output;
+    }
+  }
+
+  /**
+   * Constructor to create a BatchRenderer for the given scripts.
+   *
+   * @param scripts the paths of the scripts to run.
+   * @param threads the number of scripts to run at a time.
+   * @throws IllegalArgumentException if scripts is null or threads is less than 1.
+   */
+  public BatchRenderer(List<Path> scripts, int threads) throws IllegalArgumentException {
+    if (scripts == null || threads < 1) {
+      throw new IllegalArgumentException("Invalid scripts or number of threads.");
+    }
+    this.scripts = new ArrayList<>(scripts);
+    this.threads = threads;
+  }
+
+  /**
+   * Finds the scripts to run from a directory or a manifest. Every regular file in a directory
+   * is a script, except hidden files, and they are run in order of name. A manifest is a text
+   * file with the path of one script on each line; blank lines and lines starting with '#' are
+   * skipped. As with the -file option, relative paths are relative to the working directory.
+   *
+   * @param source the path of the directory or manifest.
+   * @return the paths of the scripts.
+   * @throws IOException if the directory or manifest cannot be read.
+   */
+  public static List<Path> findScripts(Path source) throws IOException {
+    List<Path> scripts = new ArrayList<>();
+    if (Files.isDirectory(source)) {
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+        for (Path entry : entries) {
+          if (Files.isRegularFile(entry) && !entry.getFileName().toString().startsWith(".")) {
+            scripts.add(entry);
+          }
+        }
+      }
+      Collections.sort(scripts);
+    } else {
+      for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+        String trimmed = line.trim();
+        if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+          scripts.add(Paths.get(trimmed));
+        }
+      }
+    }
+    return scripts;
+  }
+
+  /**
+   * Runs every script, at most the given number of threads at a time, and waits for them all to
+   * finish. A script that fails does not stop the others.
+   *
+   * @return the result of each script, in the order the scripts were given.
+   * @throws InterruptedException if interrupted while waiting for the scripts to finish.
+   */
+  public List<Result> run() throws InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads,
+            Math.max(1, scripts.size())));
+    try {
+      List<Future<Result>> futures = new ArrayList<>();
+      for (Path script : scripts) {
+        futures.add(pool.submit(() -> runScript(script)));
+      }
+      List<Result> results = new ArrayList<>();
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          results.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          results.add(new Result(scripts.get(i), 0, -1, String.valueOf(e.getCause())));
+        }
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs one script with its own model, view, and controller.
+   *
+   * @param script the path of the script.
+   * @return the result of running the script.
+   */
+  private static Result runScript(Path script) {
+    StringBuilder output = new StringBuilder();
+    long start = System.nanoTime();
+    int failed;
+    try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+      CollageModel model = new CollageModelImpl();
+      CollageView view = new CollageViewImpl(output);
+      CollageControllerImpl controller = new CollageControllerImpl(model, view, reader);
+      controller.run();
+      failed = controller.getFailedCommands();
+    } catch (IOException | RuntimeException e) {
+      output.append("Error running script: ").append(e).append(System.lineSeparator());
+      failed = -1;
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    return new Result(script, millis, failed, output.toString());
+  }
+
+  /**
+   * Writes a line for each result with its status, running time, and script, followed by the
+   * output of each script that failed, and a summary line.
+   *
+   * @param results the results to report.
+   * @param out where the report is written.
+   * @throws IOException if the report cannot be written.
+   */
+  public static void report(List<Result> results, Appendable out) throws IOException {
+    int failed = 0;
+    long total = 0;
+    for (Result result : results) {
+      total += result.getMillis();
+      String status = "OK";
+      if (!result.succeeded()) {
+        failed++;
+        status = "FAILED";
+      }
+      out.append(String.format("%-6s %8d ms  %s%n", status, result.getMillis(),
+              result.getScript()));
+      if (!result.succeeded()) {
+        for (String line : result.getOutput().split("\\R")) {
+          if (!line.isEmpty()) {
+            out.append("         ").append(line).append(System.lineSeparator());
+          }
+        }
+      }
+    }
+    out.append(String.format("%d scripts, %d failed, %d ms of script time%n",
+            results.size(), failed, total));
+  }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Scanner;
 import java.util.function.Function;
 
+import controller.command.AddFilter;
 import controller.command.AddImageToLayer;
 import controller.command.AddLayer;
 import controller.command.LoadProject;
@@ -16,6 +17,8 @@ import controller.command.Quit;
 import controller.command.SaveImage;
 import controller.command.SaveProject;
 import controller.command.SetFilter;
+import controller.command.SetPpmFormat;
+import controller.command.SetProjectFormat;
 import model.CollageModel;
 import view.CollageView;
 
@@ -28,6 +31,7 @@ public class CollageControllerImpl implements CollageController {
   private final CollageModel model;
   private final CollageView view;
   private final Readable readable;
+  private int failedCommands;
 
   /**
    * Constructor for controller implementation if given only model and view.
@@ -75,6 +79,7 @@ public class CollageControllerImpl implements CollageController {
     Map<String, Function<Scanner, CollageCommand>> knownCommands = new HashMap<>();
 
     knownCommands.put("set-filter", s -> new SetFilter(s.next(), s.next()));
+    knownCommands.put("add-filter", s -> new AddFilter(s.next(), s.next()));
     knownCommands.put("load-project", s -> new LoadProject(s.next()));
     knownCommands.put("new-project", s -> new NewProject(s.nextInt(), s.nextInt()));
     knownCommands.put("add-layer", s -> new AddLayer(s.next()));
@@ -82,6 +87,8 @@ public class CollageControllerImpl implements CollageController {
             s.nextInt(), s.nextInt()));
     knownCommands.put("save-project", s -> new SaveProject(s.next()));
     knownCommands.put("save-image", s -> new SaveImage(s.next()));
+    knownCommands.put("set-ppm-format", s -> new SetPpmFormat(s.next()));
+    knownCommands.put("set-project-format", s -> new SetProjectFormat(s.next()));
     knownCommands.put("quit", s -> new Quit());
 
     while (scan.hasNext()) {
@@ -93,6 +100,7 @@ public class CollageControllerImpl implements CollageController {
       CollageCommand c;
       Function<Scanner, CollageCommand> command = knownCommands.getOrDefault(s, null);
       if (command == null) {
+        failedCommands++;
         tryRenderMsg(s + " is not a known command.");
       } else {
         try {
@@ -100,12 +108,16 @@ public class CollageControllerImpl implements CollageController {
           c.runCommand(this.model);
           tryRenderMsg(c.getMessage());
         } catch (IllegalStateException e) {
+          failedCommands++;
           if (command == knownCommands.get("add-layer")) {
             tryRenderMsg("Could not add layer: No project currently open!");
           }
           if (command == knownCommands.get("set-filter")) {
             tryRenderMsg("Could not set filter: No project currently open!");
           }
+          if (command == knownCommands.get("add-filter")) {
+            tryRenderMsg("Could not add filter: No project currently open!");
+          }
           if (command == knownCommands.get("save-project")) {
             tryRenderMsg("Could not save project: No project currently open!");
           }
@@ -119,16 +131,25 @@ public class CollageControllerImpl implements CollageController {
             tryRenderMsg("Could not quit project: No project currently open!");
           }
         } catch (IllegalArgumentException e) {
+          failedCommands++;
           if (command == knownCommands.get("new-project")) {
             tryRenderMsg("Project dimensions can't be negative!");
           }
           if (command == knownCommands.get("load-project")) {
             tryRenderMsg("Not a valid project file!");
           }
-          if (command == knownCommands.get("set-filter")) {
+          if (command == knownCommands.get("set-filter")
+                  || command == knownCommands.get("add-filter")) {
             tryRenderMsg("Invalid layer/filter!");
           }
+          if (command == knownCommands.get("set-ppm-format")) {
+            tryRenderMsg("Invalid ppm format! Use P3 or P6.");
+          }
+          if (command == knownCommands.get("set-project-format")) {
+            tryRenderMsg("Invalid project format! Use text or binary.");
+          }
         } catch (IOException e) {
+          failedCommands++;
           if (command == knownCommands.get("load-project")) {
             tryRenderMsg("File not found!");
           }
@@ -142,6 +163,7 @@ public class CollageControllerImpl implements CollageController {
             tryRenderMsg("Unable to save image!");
           }
         } catch (InputMismatchException e) {
+          failedCommands++;
           tryRenderMsg("Invalid Inputs!");
         }
       }
@@ -149,6 +171,16 @@ public class CollageControllerImpl implements CollageController {
     }
   }
 
+  /**
+   * Returns the number of commands that could not be run because they were unknown, had invalid
+   * inputs, or failed, since this controller was created.
+   *
+   * @return the number of failed commands.
+   */
+  public int getFailedCommands() {
+    return failedCommands;
+  }
+
   /**
    * Renders message by appending through the view object.
    * @param message string holding message.
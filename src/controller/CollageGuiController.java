@@ -1,10 +1,18 @@
 package controller;
 
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 
 import model.CollageModel;
+import model.FilterRegistry;
 import view.CollageGuiView;
 
 /**
@@ -12,9 +20,54 @@ import view.CollageGuiView;
  * actions or features that user is using. Such actions are like starting a new project.
  */
 public class CollageGuiController implements Features {
+  // how many rows of the canvas are rendered at a time after the part on screen
+  private static final int STRIP_ROWS = 256;
 
   private CollageModel model;
   private CollageGuiView view;
+  private final RenderWorker renderer;
+  // the images the worker renders into, one for each level rendered so far, the level of the
+  // last render, how many times larger its image is shown, and the areas copied out of the
+  // images that are not yet copied into the images the view shows
+  private final Map<Integer, BufferedImage> canvasImages = new HashMap<>();
+  private volatile int imageLevel;
+  private volatile int imageScale = 1;
+  private final List<Patch> unpainted = new ArrayList<>();
+  // the image the view shows for each image the worker renders into, kept only as long as the
+  // worker keeps that image, and the image the view was last given, its level and its scale,
+  // only used on the event dispatch thread
+  private final Map<BufferedImage, BufferedImage> shownImages = new WeakHashMap<>();
+  private BufferedImage shownImage;
+  private int shownLevel;
+  private int shownScale = 1;
+  // the part of the image on screen when the latest render was requested, and the level of the
+  // image it was taken from
+  private volatile Rectangle viewport;
+  private volatile int viewportLevel;
+  // the zoom level to show, where each level is half the size of the one before
+  private volatile int zoomLevel;
+
+  /**
+   * An area of an image the worker rendered into, copied out on the worker's thread so that the
+   * event dispatch thread never reads an image while the worker is writing to it.
+   */
+  private static class Patch {
+    private final BufferedImage source;
+    private final Rectangle area;
+    private final Object pixels;
+
+    /**
+     * Constructor to copy an area out of a rendered image.
+     * @param source the image the worker rendered into.
+     * @param area the area to copy.
+     */
+    private Patch(BufferedImage source, Rectangle area) {
+      this.source = source;
+      this.area = area;
+      this.pixels = source.getRaster().getDataElements(area.x, area.y, area.width, area.height,
+              null);
+    }
+  }
 
   /**
    * Constructor for GUI controller.
@@ -24,6 +77,8 @@ public class CollageGuiController implements Features {
   public CollageGuiController(CollageModel model, CollageGuiView view) {
     this.model = model;
     this.view = view;
+    // renders off the event dispatch thread, and shows the image back on it
+    this.renderer = new RenderWorker(this::renderCollage, this::showCollage, view::renderMessage);
     view.addFeatures(this);
   }
 
@@ -36,16 +91,17 @@ public class CollageGuiController implements Features {
   public void newProject(int w, int h) {
     model.newProject(h, w);
     view.showLayersPanelAndResetLayers();
-    view.updateImagePanel(model.getCollageImage());
+    requestRender();
     view.initLayerFilterMap();
   }
 
   /**
-   * Displays full collage image.
+   * Displays full collage image. The image is rendered in the background and shown once it is
+   * ready.
    */
   @Override
   public void displayCollage() {
-    view.updateImagePanel(model.getCollageImage());
+    requestRender();
   }
 
   /**
@@ -84,7 +140,7 @@ public class CollageGuiController implements Features {
   public void loadProjectFromFile(File file) throws IOException {
     model.load(file);
     view.showLayersPanelAndResetLayers();
-    view.updateImagePanel(model.getCollageImage());
+    requestRender();
     view.addLoadedLayersToLayerPane(model.getLayersOfLoadedProject());
     view.initLayerFilterMap();
   }
@@ -99,7 +155,7 @@ public class CollageGuiController implements Features {
   @Override
   public void addImageToLayerFromFile(File file, int xOffset, int yOffset) throws IOException {
     model.addImageToLayer(model.getSelectedLayer(), file, xOffset, yOffset);
-    view.updateImagePanel(model.getCollageImage());
+    requestRender();
   }
 
   /**
@@ -124,55 +180,190 @@ public class CollageGuiController implements Features {
   }
 
   /**
-   * Contains all potential filters that can be applied to a layer.
+   * Sets the filter shown in the dropdown with the given label on a layer.
    * @param filterDropdownSelection represents dropdown selection.
    * @param layerName name of layer to be filtered.
    */
   @Override
   public void filterPicker(String filterDropdownSelection, String layerName) {
-    String filterOption;
-    switch (filterDropdownSelection) {
-      case "Brighten Value":
-        filterOption = "brighten-value";
-        break;
-      case "Brighten Intensity":
-        filterOption = "brighten-intensity";
-        break;
-      case "Brighten Luma":
-        filterOption = "brighten-luma";
-        break;
-      case "Darken Value":
-        filterOption = "darken-value";
-        break;
-      case "Darken Intensity":
-        filterOption = "darken-intensity";
-        break;
-      case "Darken Luma":
-        filterOption = "darken-luma";
-        break;
-      case "Filter Red":
-        filterOption = "filter-red";
-        break;
-      case "Filter Green":
-        filterOption = "filter-green";
-        break;
-      case "Filter Blue":
-        filterOption = "filter-blue";
-        break;
-      case "Blend Difference":
-        filterOption = "blend-difference";
-        break;
-      case "Blend Multiply":
-        filterOption = "blend-multiply";
-        break;
-      case "Blend Screen":
-        filterOption = "blend-screen";
-        break;
-      default:
-        filterOption = "Normal";
-    }
+    String filterOption = FilterRegistry.forLabel(filterDropdownSelection).getName();
     model.setFilter(layerName, filterOption);
-    view.updateImagePanel(model.getCollageImage());
+    requestRender();
+  }
+
+  /**
+   * Shows the collage zoomed out to the given level. Each level is half the height and width of
+   * the one before, and is rendered from smaller copies of the layers, so a large canvas can be
+   * seen whole without rendering it at full size.
+   * @param level the zoom level, where 0 is the full size collage.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  @Override
+  public void zoom(int level) throws IllegalArgumentException {
+    if (level < 0) {
+      throw new IllegalArgumentException("Zoom level cannot be negative!");
+    }
+    zoomLevel = level;
+    requestRender();
+  }
+
+  /**
+   * Turns preview mode on or off. In preview mode the collage is rendered from the model's
+   * proxies of its layers and shown scaled up to the size of the zoom level, so edits to a large
+   * canvas show up quickly. Saved images are still rendered at full size.
+   * @param enabled whether preview mode is on.
+   */
+  @Override
+  public void setPreviewMode(boolean enabled) {
+    model.setPreviewMode(enabled);
+    requestRender();
+  }
+
+  /**
+   * Asks for the collage to be rendered in the background, starting with the part of it that is
+   * on screen now.
+   */
+  private void requestRender() {
+    viewportLevel = shownLevel;
+    viewport = view.getVisibleImageArea();
+    renderer.requestRender();
+  }
+
+  /**
+   * Renders the collage into the image the view shows, copying only the areas that changed.
+   * The part on screen is rendered and shown first, and then the rest of the canvas a strip of
+   * rows at a time, showing each strip that changed. Stops early if a newer render is requested,
+   * since it starts over from the part on screen. Runs on the render worker's thread.
+   * @return the updated image, or null if rendering stopped early.
+   */
+  private BufferedImage renderCollage() {
+    int zoom = zoomLevel;
+    // in preview mode a smaller level is rendered and shown scaled up to the zoom level's size
+    int level = Math.max(zoom, model.getPreviewLevel());
+    int height = model.getCanvasHeight(level);
+    int width = model.getCanvasWidth(level);
+    if (height <= 0 || width <= 0) {
+      return null;
+    }
+    BufferedImage image = canvasImages.get(level);
+    if (image == null || image.getWidth() != width || image.getHeight() != height) {
+      // the first render at this level, or a project of another size was opened, and every area
+      // of a new project counts as changed, so the blank image is filled in by the steps below
+      image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      canvasImages.put(level, image);
+    }
+
+    // the part on screen is in the coordinates of the image shown when it was taken, which may
+    // be at another level than this render, and only decides what is rendered first
+    Rectangle visible = viewport;
+    int visibleLevel = viewportLevel;
+    imageLevel = level;
+    imageScale = 1 << (level - zoom);
+    if (visible != null && !visible.isEmpty()) {
+      renderArea(image, scaleArea(visible, visibleLevel, level), level);
+      if (renderer.isSuperseded()) {
+        return null;
+      }
+      renderer.publish(image);
+    }
+    for (int row = 0; row < height; row += STRIP_ROWS) {
+      boolean changed = renderArea(image,
+              new Rectangle(0, row, width, Math.min(STRIP_ROWS, height - row)), level);
+      if (renderer.isSuperseded()) {
+        return null;
+      }
+      if (changed && row + STRIP_ROWS < height) {
+        renderer.publish(image);
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Renders an area of the collage into the image, and copies out the areas that changed so
+   * that they are copied into the image the view shows.
+   * @param image the image to update.
+   * @param area the area to render.
+   * @param level the zoom level the image is at.
+   * @return true if any area of the image changed.
+   */
+  private boolean renderArea(BufferedImage image, Rectangle area, int level) {
+    List<Rectangle> changed = model.updateCollageImage(image, area, level);
+    List<Patch> patches = new ArrayList<>();
+    for (Rectangle changedArea : changed) {
+      patches.add(new Patch(image, changedArea));
+    }
+    synchronized (unpainted) {
+      unpainted.addAll(patches);
+    }
+    return !changed.isEmpty();
+  }
+
+  /**
+   * Converts an area of the image at one zoom level to the area covering the same part of the
+   * collage at another level.
+   * @param area the area at the first level.
+   * @param fromLevel the level the area is at.
+   * @param toLevel the level to convert it to.
+   * @return the area at the second level.
+   */
+  private static Rectangle scaleArea(Rectangle area, int fromLevel, int toLevel) {
+    if (fromLevel >= toLevel) {
+      int shift = fromLevel - toLevel;
+      return new Rectangle(area.x << shift, area.y << shift, area.width << shift,
+              area.height << shift);
+    }
+    int shift = toLevel - fromLevel;
+    int round = (1 << shift) - 1;
+    int x = area.x >> shift;
+    int y = area.y >> shift;
+    return new Rectangle(x, y, ((area.x + area.width + round) >> shift) - x,
+            ((area.y + area.height + round) >> shift) - y);
   }
 
+  /**
+   * Shows a rendered image, copying the areas that changed since the view last repainted it into
+   * the image the view shows and repainting only those. The worker may already be rendering into
+   * the rendered image again, so only the areas it copied out are read. Runs on the event
+   * dispatch thread.
+   * @param image the rendered image.
+   */
+  private void showCollage(BufferedImage image) {
+    List<Patch> patches;
+    synchronized (unpainted) {
+      patches = new ArrayList<>(unpainted);
+      unpainted.clear();
+    }
+    BufferedImage shown = shownImageFor(image);
+    List<Rectangle> changed = new ArrayList<>();
+    for (Patch patch : patches) {
+      BufferedImage target = shownImageFor(patch.source);
+      target.getRaster().setDataElements(patch.area.x, patch.area.y, patch.area.width,
+              patch.area.height, patch.pixels);
+      if (target == shown) {
+        changed.add(patch.area);
+      }
+    }
+    int scale = imageScale;
+    if (shown != shownImage || scale != shownScale) {
+      shownImage = shown;
+      shownLevel = imageLevel;
+      shownScale = scale;
+      view.updateImagePanel(shown, scale);
+    } else {
+      view.repaintImageAreas(changed);
+    }
+  }
+
+  /**
+   * Returns the image the view shows for an image the worker renders into. A new one starts out
+   * blank like the worker's image, and every area the worker renders is copied into it after.
+   * Runs on the event dispatch thread.
+   * @param image the image the worker renders into.
+   * @return the image the view shows for it.
+   */
+  private BufferedImage shownImageFor(BufferedImage image) {
+    return shownImages.computeIfAbsent(image, rendered -> new BufferedImage(rendered.getWidth(),
+            rendered.getHeight(), BufferedImage.TYPE_INT_ARGB));
+  }
 }
@@ -68,4 +68,18 @@ public interface Features {
    * @param layerName name of layer to be filtered.
    */
   void filterPicker(String filterOption, String layerName);
+
+  /**
+   * Shows the collage zoomed out to the given level, where each level is half the size of the
+   * one before.
+   * @param level the zoom level, where 0 is the full size collage.
+   */
+  void zoom(int level);
+
+  /**
+   * Turns preview mode on or off, where the collage is shown from smaller proxies of its layers
+   * while editing.
+   * @param enabled whether preview mode is on.
+   */
+  void setPreviewMode(boolean enabled);
 }
@@ -0,0 +1,130 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Renders the collage on a background thread so that the GUI stays responsive while a large
+ * canvas is rendered, and hands each finished image to the event dispatch thread to be shown.
+ * <p></p>
+ * Requests are coalesced: however many renders are requested while one is running, only one more
+ * render runs after it, and it sees every change made before it started. An image is only
+ * shown if no newer render has been requested by the time it is finished, so the view always
+ * ends on the latest state of the collage without showing every state along the way.
+ * <p></p>
+ * A renderer that works in several steps, such as the part of the canvas on screen first and
+ * then the rest, can show each step with {@link #publish(BufferedImage)} and stop early once
+ * {@link #isSuperseded()} says a newer render is waiting to start over.
+ * <p></p>
+ * A render that fails is reported with a message on the same thread images are shown on, and
+ * the worker goes on to the next render.
+ */
+public class RenderWorker {
+  private final Supplier<BufferedImage> renderer;
+  private final Consumer<BufferedImage> publisher;
+  private final Consumer<String> reporter;
+  private final Executor publishOn;
+  private final ExecutorService thread;
+  private final AtomicBoolean pending = new AtomicBoolean();
+
+  /**
+   * Constructor to create a RenderWorker that shows images on the event dispatch thread.
+   *
+   * @param renderer renders the collage, on the worker's thread.
+   * @param publisher shows a rendered image, on the event dispatch thread.
+   * @param reporter shows the message of a failed render, on the event dispatch thread.
+   */
+  public RenderWorker(Supplier<BufferedImage> renderer, Consumer<BufferedImage> publisher,
+                      Consumer<String> reporter) {
+    this(renderer, publisher, reporter, SwingUtilities::invokeLater);
+  }
+
+  /**
+   * Constructor to create a RenderWorker that shows images with the given executor.
+   *
+   * @param renderer renders the collage, on the worker's thread.
+   * @param publisher shows a rendered image.
+   * @param reporter shows the message of a failed render.
+   * @param publishOn runs the publisher and the reporter.
+   * @throws IllegalArgumentException if any argument is null.
+   */
+  public RenderWorker(Supplier<BufferedImage> renderer, Consumer<BufferedImage> publisher,
+                      Consumer<String> reporter, Executor publishOn)
+          throws IllegalArgumentException {
+    if (renderer == null || publisher == null || reporter == null || publishOn == null) {
+      throw new IllegalArgumentException("Null objects given.");
+    }
+    this.renderer = renderer;
+    this.publisher = publisher;
+    this.reporter = reporter;
+    this.publishOn = publishOn;
+    this.thread = Executors.newSingleThreadExecutor(task -> {
+      Thread worker = new Thread(task, "collage-render");
+      worker.setDaemon(true);
+      return worker;
+    });
+  }
+
+  /**
+   * Asks for the collage to be rendered and shown. Returns right away; if a render is already
+   * waiting to start, this request is covered by it.
+   */
+  public void requestRender() {
+    if (pending.compareAndSet(false, true)) {
+      thread.execute(this::render);
+    }
+  }
+
+  /**
+   * Returns whether a render has been requested since the current one started, in which case
+   * the current render can stop, since the newer one will cover everything it would have done.
+   *
+   * @return true if a newer render is waiting.
+   */
+  public boolean isSuperseded() {
+    return pending.get();
+  }
+
+  /**
+   * Shows an image before the current render has finished, such as after the first of several
+   * steps of rendering.
+   *
+   * @param image the image to show.
+   */
+  public void publish(BufferedImage image) {
+    publishOn.execute(() -> publisher.accept(image));
+  }
+
+  /**
+   * Stops the worker's thread. Renders that have not started are dropped.
+   */
+  public void shutdown() {
+    thread.shutdownNow();
+  }
+
+  /**
+   * Renders the collage and publishes the image unless a newer render has been requested, or
+   * reports why the render failed.
+   */
+  private void render() {
+    pending.set(false);
+    BufferedImage image;
+    try {
+      image = renderer.get();
+    } catch (RuntimeException e) {
+      String message = "Unable to render collage: " + e.getMessage();
+      publishOn.execute(() -> reporter.accept(message));
+      return;
+    }
+    if (image != null && !pending.get()) {
+      publish(image);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package controller.command;
+
+import controller.CollageCommand;
+import model.CollageModel;
+
+/**
+ * Represents a command object to execute a method to add a filter to a layer's stack of filters
+ * in the model.
+ */
+public class AddFilter implements CollageCommand {
+  private String layerName;
+  private String filterOption;
+
+  /**
+   * Constructor to create an AddFilter object.
+   *
+   * @param layerName the given layer name.
+   * @param filterOption the given filter option.
+   */
+  public AddFilter(String layerName, String filterOption) {
+    this.layerName = layerName;
+    this.filterOption = filterOption;
+  }
+
+  /**
+   * Runs the appendFilter() method on the model with the given inputs.
+   *
+   * @param model represents the model object.
+   */
+  @Override
+  public void runCommand(CollageModel model) {
+    model.appendFilter(layerName, filterOption);
+  }
+
+  /**
+   * Returns a string message associated with this command.
+   *
+   * @return a string message associated with this command.
+   */
+  @Override
+  public String getMessage() {
+    return filterOption + " added to layer " + layerName;
+  }
+}
@@ -0,0 +1,40 @@
+package controller.command;
+
+import controller.CollageCommand;
+import model.CollageModel;
+
+/**
+ * Represents a command object to execute a method to choose the format ppm images are saved in.
+ */
+public class SetPpmFormat implements CollageCommand {
+  private String format;
+
+  /**
+   * Constructor to create a SetPpmFormat object.
+   *
+   * @param format the given ppm format, either P3 or P6.
+   */
+  public SetPpmFormat(String format) {
+    this.format = format;
+  }
+
+  /**
+   * Runs the setPpmFormat() method on the model with the given input.
+   *
+   * @param model represents the model object.
+   */
+  @Override
+  public void runCommand(CollageModel model) {
+    model.setPpmFormat(format);
+  }
+
+  /**
+   * Returns a string message associated with this command.
+   *
+   * @return a string message associated with this command.
+   */
+  @Override
+  public String getMessage() {
+    return "ppm images will be saved as " + format.toUpperCase();
+  }
+}
@@ -0,0 +1,40 @@
+package controller.command;
+
+import controller.CollageCommand;
+import model.CollageModel;
+
+/**
+ * Represents a command object to execute a method to choose the format projects are saved in.
+ */
+public class SetProjectFormat implements CollageCommand {
+  private String format;
+
+  /**
+   * Constructor to create a SetProjectFormat object.
+   *
+   * @param format the given project format, either text or binary.
+   */
+  public SetProjectFormat(String format) {
+    this.format = format;
+  }
+
+  /**
+   * Runs the setProjectFormat() method on the model with the given input.
+   *
+   * @param model represents the model object.
+   */
+  @Override
+  public void runCommand(CollageModel model) {
+    model.setProjectFormat(format);
+  }
+
+  /**
+   * Returns a string message associated with this command.
+   *
+   * @return a string message associated with this command.
+   */
+  @Override
+  public String getMessage() {
+    return "projects will be saved as " + format.toLowerCase();
+  }
+}
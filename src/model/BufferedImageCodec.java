@@ -0,0 +1,180 @@
+package model;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Converts between rasters and BufferedImages by working on the arrays behind the
+ * BufferedImage's DataBuffer, rather than calling getRGB or setRGB once per pixel.
+ * <p></p>
+ * Images stored as ints, like TYPE_INT_ARGB and TYPE_INT_RGB, are copied a row at a time, and
+ * images stored as 8-bit color components, like the TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR images
+ * ImageIO reads from JPEG and PNG files, are packed straight from their bytes. Any other kind of
+ * image, such as a gray or indexed color one, is converted with a single bulk call to getRGB.
+ * Every path gives exactly the same packed ARGB values as calling getRGB on each pixel.
+ */
+public class BufferedImageCodec {
+
+  /**
+   * Reads the pixels of a BufferedImage into a new raster of packed ARGB values.
+   *
+   * @param image the image to read.
+   * @return a raster of the image's pixels.
+   */
+  protected static Raster read(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] out = new int[width * height];
+    if (!readInts(image, out) && !readBytes(image, out)) {
+      image.getRGB(0, 0, width, height, out, 0, width);
+    }
+    return new Raster(height, width, out);
+  }
+
+  /**
+   * Creates a TYPE_INT_ARGB image, or a TYPE_INT_RGB image that drops the alpha component, with
+   * the pixels of the given raster. The image has its own copy of the pixels.
+   *
+   * @param raster the raster to copy.
+   * @param alpha whether the image keeps the alpha component.
+   * @return the new image.
+   */
+  protected static BufferedImage write(Raster raster, boolean alpha) {
+    BufferedImage image = new BufferedImage(raster.getWidth(), raster.getHeight(),
+            alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    int[] pixels = raster.getData();
+    if (alpha) {
+      System.arraycopy(pixels, 0, data, 0, pixels.length);
+    } else {
+      for (int i = 0; i < pixels.length; i++) {
+        data[i] = pixels[i] & 0x00FFFFFF;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Copies an area of a raster into the same area of a TYPE_INT_ARGB image of the same size,
+   * a row at a time.
+   *
+   * @param raster the raster to copy from.
+   * @param image the image to copy into.
+   * @param area the area to copy, with x as the column and y as the row.
+   * @throws IllegalArgumentException if the image is not a TYPE_INT_ARGB image the size of the
+   *                                  raster.
+   */
+  protected static void copy(Raster raster, BufferedImage image, Rectangle area)
+          throws IllegalArgumentException {
+    if (image.getType() != BufferedImage.TYPE_INT_ARGB || image.getWidth() != raster.getWidth()
+            || image.getHeight() != raster.getHeight()) {
+      throw new IllegalArgumentException("Image does not match the raster!");
+    }
+    WritableRaster target = image.getRaster();
+    SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) target.getSampleModel();
+    DataBufferInt buffer = (DataBufferInt) target.getDataBuffer();
+    int[] data = buffer.getData();
+    int stride = model.getScanlineStride();
+    int start = buffer.getOffset() - target.getSampleModelTranslateY() * stride
+            - target.getSampleModelTranslateX();
+    int[] pixels = raster.getData();
+    int width = raster.getWidth();
+    for (int row = area.y; row < area.y + area.height; row++) {
+      System.arraycopy(pixels, row * width + area.x, data, start + row * stride + area.x,
+              area.width);
+    }
+  }
+
+  /**
+   * Copies the pixels of a TYPE_INT_ARGB or TYPE_INT_RGB image, which are already packed the
+   * way a raster's are.
+   *
+   * @return false if the image is not stored that way.
+   */
+  private static boolean readInts(BufferedImage image, int[] out) {
+    int type = image.getType();
+    if (type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_RGB) {
+      return false;
+    }
+    WritableRaster raster = image.getRaster();
+    if (!(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+      return false;
+    }
+    SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+    DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+    int[] data = buffer.getData();
+    int width = image.getWidth();
+    int stride = model.getScanlineStride();
+    int start = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+            - raster.getSampleModelTranslateX();
+    for (int row = 0; row < image.getHeight(); row++) {
+      System.arraycopy(data, start + row * stride, out, row * width, width);
+    }
+    if (type == BufferedImage.TYPE_INT_RGB) {
+      for (int i = 0; i < out.length; i++) {
+        out[i] |= 0xFF000000;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Packs the pixels of an image stored as 8-bit red, green, blue, and possibly alpha
+   * components, in any order, into ARGB values.
+   *
+   * @return false if the image is not stored that way.
+   */
+  private static boolean readBytes(BufferedImage image, int[] out) {
+    ColorModel colorModel = image.getColorModel();
+    WritableRaster raster = image.getRaster();
+    if (!(colorModel instanceof ComponentColorModel)
+            || !colorModel.getColorSpace().isCS_sRGB()
+            || colorModel.isAlphaPremultiplied()
+            || !(raster.getSampleModel() instanceof ComponentSampleModel)
+            || !(raster.getDataBuffer() instanceof DataBufferByte)
+            || raster.getDataBuffer().getNumBanks() != 1) {
+      return false;
+    }
+    int bands = raster.getNumBands();
+    boolean alpha = colorModel.hasAlpha();
+    if (bands != (alpha ? 4 : 3)) {
+      return false;
+    }
+    for (int size : colorModel.getComponentSize()) {
+      if (size != 8) {
+        return false;
+      }
+    }
+
+    ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+    DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+    byte[] data = buffer.getData();
+    int[] offsets = model.getBandOffsets();
+    int red = offsets[0];
+    int green = offsets[1];
+    int blue = offsets[2];
+    int alphaOffset = alpha ? offsets[3] : 0;
+    int pixelStride = model.getPixelStride();
+    int stride = model.getScanlineStride();
+    int start = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+            - raster.getSampleModelTranslateX() * pixelStride;
+    int width = image.getWidth();
+    for (int row = 0; row < image.getHeight(); row++) {
+      int pos = start + row * stride;
+      int o = row * width;
+      for (int col = 0; col < width; col++, pos += pixelStride) {
+        int a = alpha ? data[pos + alphaOffset] & 0xFF : 0xFF;
+        out[o + col] = a << 24 | (data[pos + red] & 0xFF) << 16
+                | (data[pos + green] & 0xFF) << 8 | data[pos + blue] & 0xFF;
+      }
+    }
+    return true;
+  }
+}
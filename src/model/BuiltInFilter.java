@@ -0,0 +1,60 @@
+package model;
+
+import model.FilterKernel.Blend;
+import model.FilterKernel.Channel;
+import model.FilterKernel.Measure;
+
+/**
+ * The filters the program comes with, in the order the GUI lists them. Each filter names the
+ * parts of its {@link FilterKernel} directly, so its name is never parsed.
+ */
+public enum BuiltInFilter implements Filter {
+  NORMAL("Normal", "Normal", FilterKernel.normal()),
+  BRIGHTEN_VALUE("brighten-value", "Brighten Value", FilterKernel.brighten(Measure.VALUE)),
+  BRIGHTEN_INTENSITY("brighten-intensity", "Brighten Intensity",
+          FilterKernel.brighten(Measure.INTENSITY)),
+  BRIGHTEN_LUMA("brighten-luma", "Brighten Luma", FilterKernel.brighten(Measure.LUMA)),
+  DARKEN_VALUE("darken-value", "Darken Value", FilterKernel.darken(Measure.VALUE)),
+  DARKEN_INTENSITY("darken-intensity", "Darken Intensity",
+          FilterKernel.darken(Measure.INTENSITY)),
+  DARKEN_LUMA("darken-luma", "Darken Luma", FilterKernel.darken(Measure.LUMA)),
+  FILTER_RED("filter-red", "Filter Red", FilterKernel.keep(Channel.RED)),
+  FILTER_BLUE("filter-blue", "Filter Blue", FilterKernel.keep(Channel.BLUE)),
+  FILTER_GREEN("filter-green", "Filter Green", FilterKernel.keep(Channel.GREEN)),
+  BLEND_DIFFERENCE("blend-difference", "Blend Difference", FilterKernel.blend(Blend.DIFFERENCE)),
+  BLEND_MULTIPLY("blend-multiply", "Blend Multiply", FilterKernel.blend(Blend.MULTIPLY)),
+  BLEND_SCREEN("blend-screen", "Blend Screen", FilterKernel.blend(Blend.SCREEN));
+
+  private final KernelFilter filter;
+
+  /**
+   * Constructor to create a BuiltInFilter with the given name, display label, and kernel.
+   *
+   * @param name the name the filter is set by.
+   * @param label the name the filter is shown with in the GUI.
+   * @param kernel the kernel that applies the filter.
+   */
+  BuiltInFilter(String name, String label, FilterKernel kernel) {
+    this.filter = new KernelFilter(name, label, kernel);
+  }
+
+  @Override
+  public String getName() {
+    return filter.getName();
+  }
+
+  @Override
+  public String getLabel() {
+    return filter.getLabel();
+  }
+
+  @Override
+  public boolean isBlend() {
+    return filter.isBlend();
+  }
+
+  @Override
+  public void apply(int[] data, int[] composite, int[] out, int from, int to) {
+    filter.apply(data, composite, out, from, to);
+  }
+}
@@ -1,9 +1,11 @@
 package model;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * An interface that represents the model for a Collage Program.
@@ -58,6 +60,18 @@ public interface CollageModel {
   void setFilter(String layerName, String filterOption)
           throws IllegalStateException, IllegalArgumentException;
 
+  /**
+   * Adds a filter to the end of a given layer's stack of filters, so that it is applied after
+   * the filters already set on the layer.
+   *
+   * @param layerName    the name of the layer that the filter is being added to.
+   * @param filterOption the name of the filter that is being added.
+   * @throws IllegalStateException    if there is no project currently open.
+   * @throws IllegalArgumentException if the layer or filter is invalid.
+   */
+  void appendFilter(String layerName, String filterOption)
+          throws IllegalStateException, IllegalArgumentException;
+
   /**
    * Saves the currently open project to a file with the given file location.
    *
@@ -76,6 +90,24 @@ public interface CollageModel {
    */
   void saveImage(String filePath) throws IOException, IllegalStateException;
 
+  /**
+   * Chooses the format images are saved in when saved to a ".ppm" file, either plain text "P3"
+   * (the default) or raw binary "P6".
+   *
+   * @param format the PPM format, either "P3" or "P6".
+   * @throws IllegalArgumentException if the format is not "P3" or "P6".
+   */
+  void setPpmFormat(String format) throws IllegalArgumentException;
+
+  /**
+   * Chooses the format projects are saved in, either the C1 "text" format (the default) or the
+   * compressed "binary" format. Projects in either format can always be loaded.
+   *
+   * @param format the project format, either "text" or "binary".
+   * @throws IllegalArgumentException if the format is not "text" or "binary".
+   */
+  void setProjectFormat(String format) throws IllegalArgumentException;
+
   /**
    * Loads a project from a project file with a given file location.
    *
@@ -112,10 +144,107 @@ public interface CollageModel {
    */
   BufferedImage getCollageImage();
 
+  /**
+   * Renders the collage and copies only the areas that changed since the last call into an
+   * image made by getCollageImage, or a blank TYPE_INT_ARGB image the size of the canvas, so a
+   * view can keep one image and repaint just those areas. Every area is copied the first time
+   * this is called on a project.
+   * @param image the collage image to update.
+   * @return the areas that were copied, with x as the column and y as the row.
+   * @throws IllegalStateException if there is no project currently open.
+   * @throws IllegalArgumentException if the image is not the size of the canvas.
+   */
+  List<Rectangle> updateCollageImage(BufferedImage image)
+          throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Renders only the part of the collage in the given area, such as the part a view is showing,
+   * and copies the areas that changed into the image like updateCollageImage(image). Changes
+   * outside the area are copied by a later call that covers them.
+   * @param image the collage image to update.
+   * @param area the area of the canvas to render, with x as the column and y as the row.
+   * @return the areas that were copied, with x as the column and y as the row.
+   * @throws IllegalStateException if there is no project currently open.
+   * @throws IllegalArgumentException if the image is not the size of the canvas.
+   */
+  List<Rectangle> updateCollageImage(BufferedImage image, Rectangle area)
+          throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Renders only the part of a zoomed out preview of the collage in the given area, and copies
+   * the areas that changed into the image like updateCollageImage(image, area). Each level is
+   * half the height and width of the one before, and is composited from smaller copies of the
+   * layers that are kept between calls, so a preview costs about as much as its own size.
+   * @param image the preview image to update, a TYPE_INT_ARGB image the size of the level.
+   * @param area the area of the preview to render, with x as the column and y as the row.
+   * @param level the level, where 0 is the full size collage.
+   * @return the areas that were copied, with x as the column and y as the row.
+   * @throws IllegalStateException if there is no project currently open.
+   * @throws IllegalArgumentException if the level is negative or the image is not its size.
+   */
+  List<Rectangle> updateCollageImage(BufferedImage image, Rectangle area, int level)
+          throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Gets the height of the current project's canvas.
+   * @return the canvas height.
+   * @throws IllegalStateException if there is no project currently open.
+   */
+  int getCanvasHeight() throws IllegalStateException;
+
+  /**
+   * Gets the width of the current project's canvas.
+   * @return the canvas width.
+   * @throws IllegalStateException if there is no project currently open.
+   */
+  int getCanvasWidth() throws IllegalStateException;
+
+  /**
+   * Gets the height of a zoomed out preview of the current project's canvas.
+   * @param level the level, where 0 is the full size collage.
+   * @return the height at that level.
+   * @throws IllegalStateException if there is no project currently open.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  int getCanvasHeight(int level) throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Gets the width of a zoomed out preview of the current project's canvas.
+   * @param level the level, where 0 is the full size collage.
+   * @return the width at that level.
+   * @throws IllegalStateException if there is no project currently open.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  int getCanvasWidth(int level) throws IllegalStateException, IllegalArgumentException;
+
+  /**
+   * Turns preview mode on or off. In preview mode a view shows the collage from a smaller proxy
+   * of each layer, at the level returned by getPreviewLevel, so edits show up quickly on a large
+   * canvas. Saved images are always rendered at full size. Preview mode is off by default.
+   * @param enabled whether preview mode is on.
+   */
+  void setPreviewMode(boolean enabled);
+
+  /**
+   * Gets the level a view should render the current project at, at least, for the preview
+   * mode. The level is the first one at which neither side of the canvas is longer than the
+   * preview size, or 0 when preview mode is off.
+   * @return the level of the proxy layers, where 0 is the full size collage.
+   * @throws IllegalStateException if there is no project currently open.
+   */
+  int getPreviewLevel() throws IllegalStateException;
+
   /**
    * Gets layers of a loaded project.
    * @return string list representing layers.
    */
   ArrayList<String> getLayersOfLoadedProject();
 
+  /**
+   * Sets how many threads are used to render images. A parallelism of 1 renders sequentially.
+   * @param parallelism the number of rendering threads.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  void setParallelism(int parallelism) throws IllegalArgumentException;
+
 }
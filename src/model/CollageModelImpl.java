@@ -1,25 +1,33 @@
 package model;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 
-import static model.Project.MAX_CLAMP;
-
 /**
  * Represents an implementation of a Collage Program model.
  * It provides the methods to creating the project canvas and adding new layers. Communicates to
  * the project object to run the actions.
+ * <p></p>
+ * Every method is synchronized on the model, so the GUI can render the collage on a background
+ * thread while the event dispatch thread edits the project.
  */
 public class CollageModelImpl implements CollageModel {
+  // the longest side of the proxy layers shown in preview mode
+  private static final int PREVIEW_SIZE = 1024;
+
   private Project currentProject;
+  private boolean rawPpm;
+  private boolean binaryProject;
+  private boolean previewMode;
   File tempFile;
 
   /**
@@ -38,7 +46,8 @@ public class CollageModelImpl implements CollageModel {
    * @throws IllegalArgumentException if the canvas height or width are less than 0
    */
   @Override
-  public void newProject(int canvasHeight, int canvasWidth) throws IllegalArgumentException {
+  public synchronized void newProject(int canvasHeight, int canvasWidth)
+          throws IllegalArgumentException {
     if (canvasHeight < 0 || canvasWidth < 0) {
       throw new IllegalArgumentException("Project dimensions cannot be negative!");
     } else {
@@ -54,7 +63,7 @@ public class CollageModelImpl implements CollageModel {
    * @throws IllegalStateException if there is no project currently open.
    */
   @Override
-  public void addLayer(String layerName) throws IllegalStateException {
+  public synchronized void addLayer(String layerName) throws IllegalStateException {
     if (currentProject == null) {
       throw new IllegalStateException("No project is currently open");
     } else if (layerName.equals("bg")) {
@@ -76,7 +85,7 @@ public class CollageModelImpl implements CollageModel {
    * @throws IOException if the image could not be found with the given filepath.
    */
   @Override
-  public void addImageToLayer(String layerName, String filePath, int x, int y)
+  public synchronized void addImageToLayer(String layerName, String filePath, int x, int y)
           throws IllegalStateException, IOException {
     File file = new File(filePath);
     addImageToLayer(layerName, file, x, y);
@@ -92,7 +101,7 @@ public class CollageModelImpl implements CollageModel {
    * @throws IllegalStateException if there is no project currently open.
    * @throws IOException if the image could not be found with the given filepath.
    */
-  public void addImageToLayer(String layerName, File file, int x, int y)
+  public synchronized void addImageToLayer(String layerName, File file, int x, int y)
           throws IllegalStateException, IOException {
     if (currentProject == null) {
       throw new IllegalStateException("No project is currently open!");
@@ -111,14 +120,31 @@ public class CollageModelImpl implements CollageModel {
    * @throws IllegalArgumentException if the layer or filter is invalid.
    */
   @Override
-  public void setFilter(String layerName, String filterOption) throws IllegalStateException,
-          IllegalArgumentException {
+  public synchronized void setFilter(String layerName, String filterOption)
+          throws IllegalStateException, IllegalArgumentException {
     if (currentProject == null) {
       throw new IllegalStateException("No project is currently open!");
     }
     currentProject.setFilter(layerName, filterOption);
   }
 
+  /**
+   * Adds a filter to the end of a given layer's stack of filters.
+   *
+   * @param layerName the name of the layer that the filter is being added to.
+   * @param filterOption the name of the filter that is being added.
+   * @throws IllegalStateException if there is no project currently open.
+   * @throws IllegalArgumentException if the layer or filter is invalid.
+   */
+  @Override
+  public synchronized void appendFilter(String layerName, String filterOption)
+          throws IllegalStateException, IllegalArgumentException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    currentProject.appendFilter(layerName, filterOption);
+  }
+
   /**
    * Saves the currently open project to a formatted file with the given file location.
    *
@@ -126,35 +152,40 @@ public class CollageModelImpl implements CollageModel {
    * @throws IOException if the file path is invalid.
    */
   @Override
-  public void saveProject(String filePath) throws IOException, IllegalStateException {
+  public synchronized void saveProject(String filePath) throws IOException, IllegalStateException {
     File file = new File(filePath);
     saveProject(file);
   }
 
   @Override
-  public void saveProject(File file) throws IOException, IllegalStateException {
+  public synchronized void saveProject(File file) throws IOException, IllegalStateException {
     if (currentProject == null) {
       throw new IllegalStateException("No project is currently open!");
     }
     try {
-      FileWriter writer = new FileWriter(file);
-      StringBuilder text = currentProject.writeToCollageFormat();
-      writer.write(String.valueOf(text));
-      writer.close();
-    } catch (IOException e) {
+      if (binaryProject) {
+        ProjectCodec.writeBinary(currentProject, file);
+      } else {
+        try (Writer writer = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+          currentProject.writeToCollageFormat(writer);
+        }
+      }
+    } catch (IOException | IllegalStateException e) {
       throw new IOException("Could not save project");
     }
   }
 
 
   /**
-   * Saves the current project collage as a ppm formatted image to a designated file location.
+   * Saves the current project collage as an image to a designated file location. Files ending in
+   * ".ppm" are saved in the PPM format chosen with setPpmFormat, and other files are saved in the
+   * format matching their extension.
    *
    * @param filePath the designated file path for the saved image.
    * @throws IOException if the file path is invalid.
    */
   @Override
-  public void saveImage(String filePath) throws IOException, IllegalStateException {
+  public synchronized void saveImage(String filePath) throws IOException, IllegalStateException {
     if (currentProject == null) {
       throw new IllegalStateException("No project is currently open!");
     }
@@ -162,34 +193,10 @@ public class CollageModelImpl implements CollageModel {
       String fileType = filePath.substring(filePath.indexOf(".") + 1);
 
       if (fileType.equalsIgnoreCase("ppm")) {
-        int height = currentProject.getCanvasHeight();
-        int width = currentProject.getCanvasWidth();
-
-        FileWriter writer = new FileWriter(filePath);
-        writer.write("P3\n");
-        writer.write(width + " " + height + "\n");
-        writer.write(MAX_CLAMP + "\n");
-
-        Pixel[][] finalImage = currentProject.layersToImage();
-
-        for (int i = 0; i < height; i++) {
-          for (int j = 0; j < width; j++) {
-            Pixel pixel = finalImage[i][j];
-            writer.write(pixel.r + " " + pixel.g + " " + pixel.b + " ");
-          }
-          writer.write("\n");
-        }
-        writer.close();
+        writePpm(currentProject.layersToImage(), new File(filePath));
       }
       else {
-        BufferedImage temp = this.getCollageImage();
-        BufferedImage current = new BufferedImage(temp.getWidth(),
-                temp.getHeight(), BufferedImage.TYPE_INT_RGB);
-        for (int i = 0; i < temp.getHeight(); i++) {
-          for (int j = 0; j < temp.getWidth(); j++) {
-            current.setRGB(j, i, temp.getRGB(j, i));
-          }
-        }
+        BufferedImage current = BufferedImageCodec.write(currentProject.layersToImage(), false);
 
         File out = new File(filePath);
         ImageIO.write(current, fileType, out);
@@ -203,38 +210,50 @@ public class CollageModelImpl implements CollageModel {
    * Temporarily saves image.
    * @throws IOException if image or file save is invalid.
    */
-  public void tempSaveImage() throws IOException {
+  public synchronized void tempSaveImage() throws IOException {
     try {
-      int height = currentProject.getCanvasHeight();
-      int width = currentProject.getCanvasWidth();
-
       tempFile = File.createTempFile("tempImage_", ".ppm");
-
-      FileWriter writer = new FileWriter(tempFile);
-      writer.write("P3\n");
-      writer.write(width + " " + height + "\n");
-      writer.write(MAX_CLAMP + "\n");
-
-      Pixel[][] finalImage = currentProject.layersToImage();
-
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          Pixel pixel = finalImage[i][j];
-          writer.write(pixel.r + " " + pixel.g + " " + pixel.b + " ");
-        }
-        writer.write("\n");
-      }
-      writer.close();
-
+      writePpm(currentProject.layersToImage(), tempFile);
     } catch (IOException e) {
       throw new IOException("Unable to save image!");
     }
   }
 
+  /**
+   * Writes the given image to a PPM file in the format chosen with setPpmFormat.
+   * @param image the image to write.
+   * @param file the file to write to.
+   * @throws IOException if the file could not be written.
+   */
+  private void writePpm(Raster image, File file) throws IOException {
+    if (rawPpm) {
+      PpmCodec.writeRaw(image, file);
+    } else {
+      PpmCodec.writePlain(image, file);
+    }
+  }
+
+  /**
+   * Chooses the format images are saved in when saved to a ".ppm" file. "P3" saves plain PPM
+   * files, with every color value written as text, which is the default. "P6" saves raw PPM
+   * files, with every color value written as a single byte.
+   * @param format the PPM format, either "P3" or "P6".
+   * @throws IllegalArgumentException if the format is not "P3" or "P6".
+   */
+  public synchronized void setPpmFormat(String format) throws IllegalArgumentException {
+    if (format.equalsIgnoreCase("P3")) {
+      rawPpm = false;
+    } else if (format.equalsIgnoreCase("P6")) {
+      rawPpm = true;
+    } else {
+      throw new IllegalArgumentException("Unknown PPM format: " + format);
+    }
+  }
+
   /**
    * Deletes temp files.
    */
-  public void deleteTempFile() {
+  public synchronized void deleteTempFile() {
     if (tempFile.delete()) {
       System.out.println("File deleted");
     } else {
@@ -250,47 +269,74 @@ public class CollageModelImpl implements CollageModel {
    * @throws IllegalArgumentException if the file is not a properly formatted project file.
    */
   @Override
-  public void load(String filePath) throws IOException, IllegalArgumentException {
+  public synchronized void load(String filePath) throws IOException, IllegalArgumentException {
     File file = new File(filePath);
     load(file);
   }
 
   /**
-   * Loads a project from a project file with a given file location.
+   * Loads a project from a project file with a given file location. Both the C1 text format and
+   * the binary format are supported, and the format is detected from the start of the file.
    * @param file represents file location of project.
    * @throws IOException if file is bad.
    * @throws IllegalArgumentException if file location is invalid.
    */
-  public void load(File file) throws IOException, IllegalArgumentException {
-    Scanner sc;
-    StringBuilder str = new StringBuilder();
+  public synchronized void load(File file) throws IOException, IllegalArgumentException {
+    TextTokenizer tokens;
 
     try {
-      sc = new Scanner(new FileInputStream(file));
-      while (sc.hasNextLine()) {
-        String s = sc.nextLine();
-        if (s.charAt(0) != '#') {
-          str.append(s).append(System.lineSeparator());
-        }
+      if (ProjectCodec.isBinary(file)) {
+        loadBinary(file);
+        return;
       }
-    } catch (FileNotFoundException e) {
+      tokens = new TextTokenizer(file);
+    } catch (IOException e) {
       throw new IOException();
     }
 
-    sc = new Scanner(str.toString());
+    try (tokens) {
+      if (!tokens.hasNext() || !tokens.next().equals("C1")) {
+        throw new IllegalArgumentException("Not a valid project file");
+      }
+      int width = tokens.nextInt();
+      int height = tokens.nextInt();
+      int maxValue = tokens.nextInt();
 
-    String token;
+      newProject(height, width);
+      currentProject.loadProject(tokens, height, width, maxValue);
+    } catch (IOException e) {
+      // the file opened, so a failed read means its contents are malformed
+      throw new IllegalArgumentException("Not a valid project file");
+    }
+  }
 
-    token = sc.next();
-    if (!token.equals("C1")) {
+  /**
+   * Loads a project from a binary project file.
+   * @param file represents file location of project.
+   * @throws IllegalArgumentException if the file is not a valid binary project file.
+   */
+  private void loadBinary(File file) throws IllegalArgumentException {
+    try {
+      currentProject = ProjectCodec.readBinary(file);
+    } catch (IOException e) {
       throw new IllegalArgumentException("Not a valid project file");
     }
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    MAX_CLAMP = sc.nextInt();
+  }
 
-    newProject(height, width);
-    currentProject.loadProject(sc, height, width);
+  /**
+   * Chooses the format projects are saved in. "text" saves projects in the C1 text format, which
+   * is the default, and "binary" saves them in the compressed binary format.
+   * @param format the project format, either "text" or "binary".
+   * @throws IllegalArgumentException if the format is not "text" or "binary".
+   */
+  public synchronized void setProjectFormat(String format) throws IllegalArgumentException {
+    if (format.equalsIgnoreCase("text")) {
+      binaryProject = false;
+    } else if (format.equalsIgnoreCase("binary")) {
+      binaryProject = true;
+    } else {
+      throw new IllegalArgumentException("Unknown project format: " + format);
+    }
   }
 
   /**
@@ -299,7 +345,7 @@ public class CollageModelImpl implements CollageModel {
    *
    * @throws IllegalStateException if no project is currently open.
    */
-  public void quitProject() throws IllegalStateException {
+  public synchronized void quitProject() throws IllegalStateException {
     if (currentProject == null) {
       throw new IllegalStateException("No project is currently open!");
     }
@@ -310,7 +356,7 @@ public class CollageModelImpl implements CollageModel {
    * Changes selected layer.
    * @param layer represents name of new selected layer.
    */
-  public void setSelectedLayer(String layer) {
+  public synchronized void setSelectedLayer(String layer) {
     currentProject.setSelectedLayer(layer);
   }
 
@@ -318,7 +364,7 @@ public class CollageModelImpl implements CollageModel {
    * Gets selected layer.
    * @return String of selected layer.
    */
-  public String getSelectedLayer() {
+  public synchronized String getSelectedLayer() {
     return currentProject.getSelectedLayer();
   }
 
@@ -326,16 +372,115 @@ public class CollageModelImpl implements CollageModel {
    * Gets collage image.
    * @return collage image as a buffered image.
    */
-  public BufferedImage getCollageImage() {
+  public synchronized BufferedImage getCollageImage() {
     return currentProject.getCollageImage();
   }
 
+  @Override
+  public synchronized List<Rectangle> updateCollageImage(BufferedImage image)
+          throws IllegalStateException, IllegalArgumentException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.updateCollageImage(image);
+  }
+
+  @Override
+  public synchronized List<Rectangle> updateCollageImage(BufferedImage image, Rectangle area)
+          throws IllegalStateException, IllegalArgumentException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.updateCollageImage(image, area);
+  }
+
+  @Override
+  public synchronized List<Rectangle> updateCollageImage(BufferedImage image, Rectangle area,
+                                                         int level)
+          throws IllegalStateException, IllegalArgumentException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.updateCollageImage(image, area, level);
+  }
+
+  @Override
+  public synchronized int getCanvasHeight() throws IllegalStateException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.getCanvasHeight();
+  }
+
+  @Override
+  public synchronized int getCanvasWidth() throws IllegalStateException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.getCanvasWidth();
+  }
+
+  @Override
+  public synchronized int getCanvasHeight(int level)
+          throws IllegalStateException, IllegalArgumentException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.getCanvasHeight(level);
+  }
+
+  @Override
+  public synchronized int getCanvasWidth(int level)
+          throws IllegalStateException, IllegalArgumentException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    return currentProject.getCanvasWidth(level);
+  }
+
+  /**
+   * Turns preview mode on or off for every project opened in this model. The proxies are the
+   * levels of each layer's MipPyramid, so only the tiles a change touches are shrunk again, and
+   * filter changes and re-renders cost about as much as the proxy size.
+   * @param enabled whether preview mode is on.
+   */
+  @Override
+  public synchronized void setPreviewMode(boolean enabled) {
+    previewMode = enabled;
+  }
+
+  @Override
+  public synchronized int getPreviewLevel() throws IllegalStateException {
+    if (currentProject == null) {
+      throw new IllegalStateException("No project is currently open!");
+    }
+    if (!previewMode) {
+      return 0;
+    }
+    int level = 0;
+    while (currentProject.getCanvasHeight(level) > PREVIEW_SIZE
+            || currentProject.getCanvasWidth(level) > PREVIEW_SIZE) {
+      level++;
+    }
+    return level;
+  }
+
   /**
    * Gets layers of a loaded project.
    * @return string list representing layers.
    */
-  public ArrayList<String> getLayersOfLoadedProject() {
+  public synchronized ArrayList<String> getLayersOfLoadedProject() {
     return currentProject.getLayersOfLoadedProject();
   }
 
+  /**
+   * Sets how many threads are used to render images. The setting is shared by every project.
+   * A parallelism of 1 renders sequentially.
+   * @param parallelism the number of rendering threads.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  public synchronized void setParallelism(int parallelism) throws IllegalArgumentException {
+    RenderPool.setSharedParallelism(parallelism);
+  }
+
 }
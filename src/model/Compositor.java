@@ -0,0 +1,314 @@
+package model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Combines the layers of a project into a single image and caches its work between renders.
+ * For every layer in the stack, the compositor keeps the layer's filtered pixels and the
+ * composite of that layer placed over everything beneath it. Blending layers are blended against
+ * the composite of the layers beneath them, which is already built by the time they are reached,
+ * so a whole stack is rendered in a single pass from bottom to top.
+ * <p></p>
+ * The canvas is divided into tiles, and the compositor remembers, for every tile, the lowest
+ * layer that changed there since the last render. A render only processes those tiles, from
+ * that layer upward, and tiles where a layer is fully transparent take the composite beneath
+ * as is without filtering or blending the layer. Dirty tiles are processed in parallel, a band
+ * of tile rows at a time, on the shared RenderPool.
+ */
+public class Compositor {
+  private static final int CLEAN = Integer.MAX_VALUE;
+
+  private final int canvasHeight;
+  private final int canvasWidth;
+  private final TileGrid tiles;
+  private final Raster background;
+  private final List<CachedLayer> cache;
+  private final int[] dirtyFrom;
+  private final boolean[] unshown;
+  private final PixelKernels kernels;
+  private int lastFilteredCount;
+  private int lastTileCount;
+
+  /**
+   * Represents the cached render state of a single layer in the stack.
+   */
+  private static class CachedLayer {
+    private final Layer layer;
+    private final boolean[] staleTiles;
+    private int seenVersion;
+    private int[] filtered;
+    private Raster composite;
+    private volatile boolean filteredThisRender;
+
+    /**
+     * Constructor to create an empty cache entry for the given layer, with every tile stale.
+     *
+     * @param layer the layer being cached.
+     * @param tileCount the number of tiles on the canvas.
+     */
+    private CachedLayer(Layer layer, int tileCount) {
+      this.layer = layer;
+      this.staleTiles = new boolean[tileCount];
+      this.seenVersion = -1;
+    }
+  }
+
+  /**
+   * Constructor to create a Compositor for a canvas of a given height and width.
+   *
+   * @param canvasHeight the height of the canvas.
+   * @param canvasWidth the width of the canvas.
+   */
+  protected Compositor(int canvasHeight, int canvasWidth) {
+    this.canvasHeight = canvasHeight;
+    this.canvasWidth = canvasWidth;
+    this.tiles = new TileGrid(canvasHeight, canvasWidth);
+    this.background = new Raster(canvasHeight, canvasWidth, Raster.pack(255, 255, 255, 0));
+    this.cache = new ArrayList<>();
+    this.dirtyFrom = new int[tiles.getTileCount()];
+    Arrays.fill(dirtyFrom, CLEAN);
+    this.unshown = new boolean[tiles.getTileCount()];
+    Arrays.fill(unshown, true);
+    this.kernels = PixelKernels.getShared();
+  }
+
+  /**
+   * Renders the given layers, ordered from bottom to top, into a single image. Only tiles where
+   * a layer changed since the previous render are processed, starting from the lowest layer
+   * that changed there. Layers that did not change reuse their cached filtered pixels, except for
+   * blending layers, which are blended again since the composite beneath them changed.
+   *
+   * @param layers the layers to combine, from bottom to top.
+   * @return the final image. The returned raster is owned by the compositor and must not be
+   *         modified.
+   */
+  protected Raster render(List<Layer> layers) {
+    return render(layers, 0, canvasHeight, 0, canvasWidth);
+  }
+
+  /**
+   * Renders only the tiles of the given layers that overlap an area of the canvas, so that the
+   * part of the canvas a view shows can be brought up to date before the rest. Changed tiles
+   * outside the area are left for a later render, and until then hold out of date pixels in the
+   * returned image.
+   *
+   * @param layers the layers to combine, from bottom to top.
+   * @param fromRow the first row of the area.
+   * @param toRow the row after the last row of the area.
+   * @param fromCol the first column of the area.
+   * @param toCol the column after the last column of the area.
+   * @return the final image. The returned raster is owned by the compositor and must not be
+   *         modified.
+   */
+  protected Raster render(List<Layer> layers, int fromRow, int toRow, int fromCol, int toCol) {
+    syncLayers(layers);
+    int layerCount = cache.size();
+    int tilesAcross = tiles.getTilesAcross();
+    int tileSize = tiles.getTileSize();
+    fromRow = Math.max(fromRow, 0);
+    fromCol = Math.max(fromCol, 0);
+    toRow = Math.min(toRow, canvasHeight);
+    toCol = Math.min(toCol, canvasWidth);
+    int firstTileRow = fromRow / tileSize;
+    int tileRows = toRow > fromRow ? (toRow - 1) / tileSize + 1 - firstTileRow : 0;
+    int firstTileCol = fromCol / tileSize;
+    int endTileCol = toCol > fromCol ? (toCol - 1) / tileSize + 1 : firstTileCol;
+    AtomicInteger tileCount = new AtomicInteger();
+
+    RenderPool.getShared().forEachBand(tileRows, (toCol - fromCol) * tileSize,
+            (fromBand, toBand) -> {
+        for (int tileRow = firstTileRow + fromBand; tileRow < firstTileRow + toBand; tileRow++) {
+          for (int tile = tileRow * tilesAcross + firstTileCol;
+               tile < tileRow * tilesAcross + endTileCol; tile++) {
+            if (dirtyFrom[tile] < layerCount) {
+              renderTile(tile, dirtyFrom[tile]);
+              unshown[tile] = true;
+              tileCount.incrementAndGet();
+            }
+            dirtyFrom[tile] = CLEAN;
+          }
+        }
+      });
+
+    lastTileCount = tileCount.get();
+    lastFilteredCount = 0;
+    for (CachedLayer entry : cache) {
+      if (entry.filteredThisRender) {
+        lastFilteredCount++;
+        entry.filteredThisRender = false;
+      }
+    }
+    return cache.isEmpty() ? background : cache.get(layerCount - 1).composite;
+  }
+
+  /**
+   * Returns how many layers had to be filtered again during the most recent render.
+   *
+   * @return the number of layers filtered by the last render.
+   */
+  protected int getLastFilteredCount() {
+    return lastFilteredCount;
+  }
+
+  /**
+   * Returns how many tiles were composited again during the most recent render.
+   *
+   * @return the number of tiles processed by the last render.
+   */
+  protected int getLastTileCount() {
+    return lastTileCount;
+  }
+
+  /**
+   * Returns the areas of the canvas that renders have changed since the last time this method
+   * was called, or every area the first time, and forgets them. This lets a view that keeps its
+   * own copy of the final image update only the parts that changed. Adjacent changed tiles are
+   * merged, along tile rows and then across rows with the same span of columns.
+   *
+   * @return the changed areas, with x as the column and y as the row.
+   */
+  protected List<Rectangle> takeChangedAreas() {
+    int tileSize = tiles.getTileSize();
+    int tilesAcross = tiles.getTilesAcross();
+    List<Rectangle> areas = new ArrayList<>();
+    List<Rectangle> previousRow = new ArrayList<>();
+    for (int tileRow = 0; tileRow < tiles.getTilesDown(); tileRow++) {
+      int y = tileRow * tileSize;
+      int height = Math.min(tileSize, canvasHeight - y);
+      List<Rectangle> row = new ArrayList<>();
+      int tileCol = 0;
+      while (tileCol < tilesAcross) {
+        if (!unshown[tileRow * tilesAcross + tileCol]) {
+          tileCol++;
+          continue;
+        }
+        int start = tileCol;
+        while (tileCol < tilesAcross && unshown[tileRow * tilesAcross + tileCol]) {
+          unshown[tileRow * tilesAcross + tileCol] = false;
+          tileCol++;
+        }
+        int x = start * tileSize;
+        int width = Math.min(tileCol * tileSize, canvasWidth) - x;
+        Rectangle area = null;
+        for (Rectangle above : previousRow) {
+          if (above.x == x && above.width == width) {
+            area = above;
+            area.height += height;
+          }
+        }
+        if (area == null) {
+          area = new Rectangle(x, y, width, height);
+          areas.add(area);
+        }
+        row.add(area);
+      }
+      previousRow = row;
+    }
+    return areas;
+  }
+
+  /**
+   * Brings the cache in line with the given stack of layers and records which tiles changed.
+   * A layer that is not the one cached at its position invalidates the cache from there up.
+   * Every tile a layer changed since it was last seen is marked stale for that layer and dirty
+   * from that layer upward.
+   *
+   * @param layers the layers to combine, from bottom to top.
+   */
+  private void syncLayers(List<Layer> layers) {
+    for (int k = 0; k < layers.size(); k++) {
+      Layer layer = layers.get(k);
+      if (k == cache.size() || cache.get(k).layer != layer) {
+        // the stack changed at this position, so nothing cached from here up is usable
+        cache.subList(k, cache.size()).clear();
+        cache.add(new CachedLayer(layer, tiles.getTileCount()));
+      }
+
+      CachedLayer entry = cache.get(k);
+      if (entry.seenVersion != layer.getVersion()) {
+        for (int tile = 0; tile < dirtyFrom.length; tile++) {
+          if (layer.getTileVersion(tile) > entry.seenVersion) {
+            entry.staleTiles[tile] = true;
+            dirtyFrom[tile] = Math.min(dirtyFrom[tile], k);
+          }
+        }
+        entry.seenVersion = layer.getVersion();
+      }
+
+      if (entry.composite == null) {
+        entry.composite = new Raster(canvasHeight, canvasWidth, 0);
+      }
+      if (layer.getFilter() == BuiltInFilter.NORMAL) {
+        // unfiltered layers are composited straight from their own pixels
+        entry.filtered = null;
+      } else if (entry.filtered == null) {
+        entry.filtered = new int[canvasHeight * canvasWidth];
+      }
+    }
+    cache.subList(layers.size(), cache.size()).clear();
+  }
+
+  /**
+   * Composites a single tile from the given layer to the top of the stack.
+   *
+   * @param tile the tile number.
+   * @param from the index of the lowest layer that changed in the tile.
+   */
+  private void renderTile(int tile, int from) {
+    int fromRow = tiles.getRowStart(tile);
+    int toRow = tiles.getRowEnd(tile);
+    int fromCol = tiles.getColStart(tile);
+    int toCol = tiles.getColEnd(tile);
+
+    for (int k = from; k < cache.size(); k++) {
+      CachedLayer entry = cache.get(k);
+      Layer layer = entry.layer;
+      int[] below = k == 0 ? background.getData() : cache.get(k - 1).composite.getData();
+      int[] out = entry.composite.getData();
+      boolean stale = entry.staleTiles[tile];
+      entry.staleTiles[tile] = false;
+      if (stale) {
+        entry.filteredThisRender = true;
+      }
+
+      if (layer.isTileEmpty(tile)) {
+        copyRegion(below, out, fromRow, toRow, fromCol, toCol);
+        continue;
+      }
+
+      int[] layerData = entry.filtered;
+      if (layerData == null) {
+        layerData = layer.getRaster().getData();
+      } else if (stale || layer.getFilter().isBlend()) {
+        layer.filterRegion(below, layerData, fromRow, toRow, fromCol, toCol);
+        entry.filteredThisRender = true;
+      }
+      for (int i = fromRow; i < toRow; i++) {
+        kernels.placeOver(below, layerData, out, i * canvasWidth + fromCol,
+                i * canvasWidth + toCol);
+      }
+    }
+  }
+
+  /**
+   * Copies an area of one canvas-sized array to the same area of another.
+   *
+   * @param src the array to copy from.
+   * @param dest the array to copy to.
+   * @param fromRow the first row of the area.
+   * @param toRow the row after the last row of the area.
+   * @param fromCol the first column of the area.
+   * @param toCol the column after the last column of the area.
+   */
+  private void copyRegion(int[] src, int[] dest, int fromRow, int toRow, int fromCol,
+                          int toCol) {
+    for (int i = fromRow; i < toRow; i++) {
+      System.arraycopy(src, i * canvasWidth + fromCol, dest, i * canvasWidth + fromCol,
+              toCol - fromCol);
+    }
+  }
+}
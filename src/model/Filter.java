@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Represents a filter that can be set on a layer. A filter is looked up by name once, when it is
+ * set on a layer, and is then applied a row or a tile at a time to the layer's packed ARGB
+ * values, so rendering never has to look at the filter's name.
+ * <p></p>
+ * Filters are found by name through the {@link FilterRegistry}, and new filters can be added to
+ * it without changing how layers are rendered.
+ */
+public interface Filter {
+
+  /**
+   * Returns the name the filter is set by, as used in commands and saved in project files.
+   *
+   * @return the filter's name.
+   */
+  String getName();
+
+  /**
+   * Returns the name the filter is shown with in the GUI.
+   *
+   * @return the filter's display label.
+   */
+  String getLabel();
+
+  /**
+   * Returns whether the filter blends the layer with the composite image beneath it. The result
+   * of a blending filter changes whenever anything beneath the layer changes.
+   *
+   * @return true if the filter reads the composite beneath the layer.
+   */
+  boolean isBlend();
+
+  /**
+   * Applies the filter to the packed ARGB values in a range of the given array, writing the
+   * results to the same range of the output array. The data and output arrays may be the same
+   * array.
+   *
+   * @param data the packed ARGB values to filter.
+   * @param composite the packed ARGB values of the composite image beneath the layer, at the same
+   *                  positions as the data. Only read by blending filters, and may be null for
+   *                  filters that do not blend.
+   * @param out the array the filtered values are written to.
+   * @param from the first index of the range.
+   * @param to the index after the last index of the range.
+   */
+  void apply(int[] data, int[] composite, int[] out, int from, int to);
+}
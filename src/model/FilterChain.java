@@ -0,0 +1,107 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents an ordered stack of filters applied one after another, such as brightening a layer
+ * and then isolating its red channel. A chain is named by the names of its filters joined with
+ * '+', for example "brighten-value+filter-red", which is how it is set on a layer and saved in
+ * project files.
+ * <p></p>
+ * The filters in a chain are fused into a single pass: the range being filtered is split into
+ * short runs of pixels, and every filter is applied to a run before moving on to the next, so
+ * the run stays in cache between filters and no intermediate buffer the size of the layer is
+ * ever needed. A stack of three filters sweeps over the layer's pixels once, not three times.
+ */
+public class FilterChain implements Filter {
+  protected static final String SEPARATOR = "+";
+  // pixels filtered by every stage before moving on, small enough to stay in the L1 cache
+  private static final int RUN_LENGTH = 1024;
+
+  private final Filter[] stages;
+
+  /**
+   * Constructor to create a FilterChain applying the given filters in order.
+   *
+   * @param stages the filters of the chain, at least two.
+   */
+  private FilterChain(Filter[] stages) {
+    this.stages = stages;
+  }
+
+  /**
+   * Returns a filter that applies the given filters in order. Chains among the given filters are
+   * flattened into their filters and the Normal filter is left out, since it changes nothing. A
+   * single remaining filter is returned as it is, and no remaining filters give Normal.
+   *
+   * @param filters the filters to apply, in order.
+   * @return a filter applying all of them.
+   */
+  protected static Filter of(List<Filter> filters) {
+    List<Filter> stages = new ArrayList<>();
+    for (Filter filter : filters) {
+      if (filter instanceof FilterChain) {
+        stages.addAll(((FilterChain) filter).getStages());
+      } else if (filter != BuiltInFilter.NORMAL) {
+        stages.add(filter);
+      }
+    }
+    if (stages.isEmpty()) {
+      return BuiltInFilter.NORMAL;
+    }
+    if (stages.size() == 1) {
+      return stages.get(0);
+    }
+    return new FilterChain(stages.toArray(new Filter[0]));
+  }
+
+  /**
+   * Returns the filters of this chain, in the order they are applied.
+   *
+   * @return a list of the chain's filters.
+   */
+  protected List<Filter> getStages() {
+    return List.of(stages);
+  }
+
+  @Override
+  public String getName() {
+    StringBuilder name = new StringBuilder(stages[0].getName());
+    for (int k = 1; k < stages.length; k++) {
+      name.append(SEPARATOR).append(stages[k].getName());
+    }
+    return name.toString();
+  }
+
+  @Override
+  public String getLabel() {
+    StringBuilder label = new StringBuilder(stages[0].getLabel());
+    for (int k = 1; k < stages.length; k++) {
+      label.append(" + ").append(stages[k].getLabel());
+    }
+    return label.toString();
+  }
+
+  @Override
+  public boolean isBlend() {
+    for (Filter stage : stages) {
+      if (stage.isBlend()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void apply(int[] data, int[] composite, int[] out, int from, int to) {
+    for (int start = from; start < to; start += RUN_LENGTH) {
+      int end = Math.min(to, start + RUN_LENGTH);
+      // the first filter reads the layer's pixels, and the rest refine its output in place
+      stages[0].apply(data, composite, out, start, end);
+      for (int k = 1; k < stages.length; k++) {
+        stages[k].apply(out, composite, out, start, end);
+      }
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package model;
+
+/**
+ * Represents a filter option compiled into the arithmetic that applies it, so that filtering a
+ * layer never looks at the filter's name once per pixel. A kernel is made of:
+ * <ul>
+ * <li>a brightness measure (value, intensity, luma, or none) and whether it brightens or
+ * darkens,</li>
+ * <li>a mask that keeps a single color channel, or all of them,</li>
+ * <li>and a blending mode (difference, multiply, screen, or none).</li>
+ * </ul>
+ * The built-in filters build their kernels from these parts directly, and only filter options
+ * that are not registered are compiled from the words in their names.
+ * <p></p>
+ * The measures and clamping use lookup tables, so the brightness and color channel filters run
+ * as integer arithmetic with no String operations or clamping branches per pixel. The difference
+ * blend uses {@link PixelKernels}, and the multiply and screen blends use {@link HslBlend}, which
+ * allocates nothing per pixel. Results are exactly
+ * the same as computing each pixel with the formulas in the filter's description.
+ */
+public class FilterKernel {
+  /**
+   * The ways a kernel can measure the brightness of a pixel.
+   */
+  protected enum Measure {
+    NONE, VALUE, INTENSITY, LUMA
+  }
+
+  /**
+   * The color channels a kernel can keep.
+   */
+  protected enum Channel {
+    ALL(0xFFFFFFFF), RED(0xFFFF0000), GREEN(0xFF00FF00), BLUE(0xFF0000FF);
+
+    private final int mask;
+
+    /**
+     * Constructor to create a Channel that keeps the given bits of a packed ARGB value.
+     *
+     * @param mask the bits the channel keeps.
+     */
+    Channel(int mask) {
+      this.mask = mask;
+    }
+  }
+
+  /**
+   * The ways a kernel can blend a layer with the composite beneath it.
+   */
+  protected enum Blend {
+    NONE, DIFFERENCE, MULTIPLY, SCREEN
+  }
+
+  private static final int LUMA_SHIFT = 20;
+  private static final int LUMA_ONE = 1 << LUMA_SHIFT;
+  private static final int LUMA_EPSILON = 4;
+  private static final int[] LUMA_RED = new int[256];
+  private static final int[] LUMA_GREEN = new int[256];
+  private static final int[] LUMA_BLUE = new int[256];
+  private static final int[] THIRDS = new int[3 * 255 + 1];
+  // CLAMP[v + 255] is v clamped to 0 to 255, for any v from -255 to 510
+  private static final int[] CLAMP = new int[3 * 255 + 1];
+
+  static {
+    for (int i = 0; i < 256; i++) {
+      LUMA_RED[i] = (int) Math.round(i * 0.2126 * LUMA_ONE);
+      LUMA_GREEN[i] = (int) Math.round(i * 0.7152 * LUMA_ONE);
+      LUMA_BLUE[i] = (int) Math.round(i * 0.0722 * LUMA_ONE);
+    }
+    for (int i = 0; i < THIRDS.length; i++) {
+      THIRDS[i] = i / 3;
+    }
+    for (int i = 0; i < CLAMP.length; i++) {
+      CLAMP[i] = Math.max(0, Math.min(255, i - 255));
+    }
+  }
+
+  private final Measure measure;
+  private final int sign;
+  private final int mask;
+  private final Blend blend;
+
+  /**
+   * Constructor to create a FilterKernel from its parts.
+   *
+   * @param measure the brightness measure.
+   * @param sign 1 to brighten, -1 to darken, or 0 to leave brightness alone.
+   * @param channel the color channels the filter keeps.
+   * @param blend the blending mode.
+   */
+  private FilterKernel(Measure measure, int sign, Channel channel, Blend blend) {
+    this.measure = measure;
+    this.sign = sign;
+    this.mask = channel.mask;
+    this.blend = blend;
+  }
+
+  /**
+   * Returns a kernel that leaves pixels unchanged.
+   *
+   * @return the kernel.
+   */
+  protected static FilterKernel normal() {
+    return new FilterKernel(Measure.NONE, 0, Channel.ALL, Blend.NONE);
+  }
+
+  /**
+   * Returns a kernel that brightens every color channel of a pixel by its brightness.
+   *
+   * @param measure how the brightness is measured.
+   * @return the kernel.
+   */
+  protected static FilterKernel brighten(Measure measure) {
+    return new FilterKernel(measure, 1, Channel.ALL, Blend.NONE);
+  }
+
+  /**
+   * Returns a kernel that darkens every color channel of a pixel by its brightness.
+   *
+   * @param measure how the brightness is measured.
+   * @return the kernel.
+   */
+  protected static FilterKernel darken(Measure measure) {
+    return new FilterKernel(measure, -1, Channel.ALL, Blend.NONE);
+  }
+
+  /**
+   * Returns a kernel that keeps only one color channel of a pixel, and its alpha.
+   *
+   * @param channel the channel to keep.
+   * @return the kernel.
+   */
+  protected static FilterKernel keep(Channel channel) {
+    return new FilterKernel(Measure.NONE, 0, channel, Blend.NONE);
+  }
+
+  /**
+   * Returns a kernel that blends a layer with the composite beneath it.
+   *
+   * @param blend the blending mode.
+   * @return the kernel.
+   */
+  protected static FilterKernel blend(Blend blend) {
+    return new FilterKernel(Measure.NONE, 0, Channel.ALL, blend);
+  }
+
+  /**
+   * Compiles a filter option that is not a registered filter into a kernel, from the words in
+   * its name. A filter option can be a combination of a
+   * brightness adjustment (brighten/darken) with a calculation method (value/intensity/luma), a
+   * color channel isolation (red/green/blue), or a blending mode (difference/multiply/screen).
+   * Parts the option does not name are left out, so "Normal" compiles to a kernel that leaves
+   * pixels unchanged.
+   *
+   * @param filterOption the filter option.
+   * @return the compiled kernel.
+   */
+  protected static FilterKernel compile(String filterOption) {
+    Measure measure = Measure.NONE;
+    if (filterOption.contains("value")) {
+      measure = Measure.VALUE;
+    } else if (filterOption.contains("intensity")) {
+      measure = Measure.INTENSITY;
+    } else if (filterOption.contains("luma")) {
+      measure = Measure.LUMA;
+    }
+
+    int sign = 0;
+    if (filterOption.contains("brighten")) {
+      sign = 1;
+    } else if (filterOption.contains("darken")) {
+      sign = -1;
+    }
+
+    Channel channel = Channel.ALL;
+    if (filterOption.contains("red")) {
+      channel = Channel.RED;
+    } else if (filterOption.contains("green")) {
+      channel = Channel.GREEN;
+    } else if (filterOption.contains("blue")) {
+      channel = Channel.BLUE;
+    }
+
+    Blend blend = Blend.NONE;
+    if (filterOption.contains("difference")) {
+      blend = Blend.DIFFERENCE;
+    } else if (filterOption.contains("multiply")) {
+      blend = Blend.MULTIPLY;
+    } else if (filterOption.contains("screen")) {
+      blend = Blend.SCREEN;
+    }
+    return new FilterKernel(measure, sign, channel, blend);
+  }
+
+  /**
+   * Returns whether this kernel blends the layer with the composite beneath it.
+   *
+   * @return true if the kernel has a blending mode.
+   */
+  protected boolean isBlend() {
+    return blend != Blend.NONE;
+  }
+
+  /**
+   * Applies the brightness and color channel parts of this kernel to the packed ARGB values in a
+   * range of the given array, writing the results to the same range of the output array. The two
+   * arrays may be the same array.
+   *
+   * @param data the packed ARGB values to filter.
+   * @param out the array the filtered values are written to.
+   * @param from the first index of the range.
+   * @param to the index after the last index of the range.
+   */
+  protected void apply(int[] data, int[] out, int from, int to) {
+    if (sign == 0 || measure == Measure.NONE) {
+      // brightness is unchanged, so only the channel mask is left to apply
+      if (mask == 0xFFFFFFFF) {
+        if (data != out) {
+          System.arraycopy(data, from, out, from, to - from);
+        }
+      } else {
+        for (int i = from; i < to; i++) {
+          out[i] = data[i] & mask;
+        }
+      }
+      return;
+    }
+
+    // one loop per measure keeps the choice of measure out of the loop
+    if (measure == Measure.VALUE) {
+      for (int i = from; i < to; i++) {
+        int argb = data[i];
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        out[i] = adjust(argb, r, g, b, Math.max(Math.max(r, g), b));
+      }
+    } else if (measure == Measure.INTENSITY) {
+      for (int i = from; i < to; i++) {
+        int argb = data[i];
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        out[i] = adjust(argb, r, g, b, THIRDS[r + g + b]);
+      }
+    } else {
+      for (int i = from; i < to; i++) {
+        int argb = data[i];
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        out[i] = adjust(argb, r, g, b, luma(r, g, b));
+      }
+    }
+  }
+
+  /**
+   * Brightens or darkens a pixel by the given amount, clamping each component, and applies the
+   * channel mask.
+   *
+   * @param argb the packed ARGB value of the pixel.
+   * @param r the red component of the pixel.
+   * @param g the green component of the pixel.
+   * @param b the blue component of the pixel.
+   * @param inc the pixel's brightness measure.
+   * @return the filtered packed ARGB value.
+   */
+  private int adjust(int argb, int r, int g, int b, int inc) {
+    int offset = 255 + sign * inc;
+    return ((argb & 0xFF000000) | CLAMP[r + offset] << 16 | CLAMP[g + offset] << 8
+            | CLAMP[b + offset]) & mask;
+  }
+
+  /**
+   * Applies the blending part of this kernel to the packed ARGB values in a range of the given
+   * array, using the values at the same positions in the composite array, and writes the results
+   * to the same range of the output array. Pixels are left unchanged if the kernel does not
+   * blend. The data and output arrays may be the same array.
+   *
+   * @param data the packed ARGB values to filter.
+   * @param composite the packed ARGB values of the composite image beneath the layer.
+   * @param out the array the filtered values are written to.
+   * @param from the first index of the range.
+   * @param to the index after the last index of the range.
+   */
+  protected void apply(int[] data, int[] composite, int[] out, int from, int to) {
+    if (blend == Blend.NONE) {
+      if (data != out) {
+        System.arraycopy(data, from, out, from, to - from);
+      }
+      return;
+    }
+
+    // one loop per blending mode keeps the choice of mode out of the loop
+    if (blend == Blend.DIFFERENCE) {
+      PixelKernels.getShared().difference(data, composite, out, from, to);
+    } else if (blend == Blend.MULTIPLY) {
+      for (int i = from; i < to; i++) {
+        out[i] = HslBlend.multiply(data[i], composite[i]);
+      }
+    } else {
+      for (int i = from; i < to; i++) {
+        out[i] = HslBlend.screen(data[i], composite[i]);
+      }
+    }
+  }
+
+  /**
+   * Calculates the luma of a pixel based on its red, green, and blue color values.
+   * The luma is a weighted sum of the color values that represents the perceived brightness
+   * of the pixel, r * 0.2126 + g * 0.7152 + b * 0.0722, rounded down.
+   * <p></p>
+   * The sum is taken in fixed point from the lookup tables. Sums that land within rounding
+   * error of a whole number are rare, and are computed again in floating point so that the
+   * result always matches the floating point formula.
+   *
+   * @param r the red color value of the pixel.
+   * @param g the green color value of the pixel.
+   * @param b the blue color value of the pixel.
+   * @return the luma of the pixel.
+   */
+  protected static int luma(int r, int g, int b) {
+    int sum = LUMA_RED[r] + LUMA_GREEN[g] + LUMA_BLUE[b];
+    if (((sum + LUMA_EPSILON) & (LUMA_ONE - 1)) < 2 * LUMA_EPSILON) {
+      return (int) (r * 0.2126 + g * 0.7152 + b * 0.0722);
+    }
+    return sum >> LUMA_SHIFT;
+  }
+}
@@ -0,0 +1,106 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps track of every filter that can be set on a layer, by name. The registry starts out with
+ * the {@link BuiltInFilter}s, in the order they are declared, and more filters can be registered
+ * at any time.
+ * <p></p>
+ * Filter options that are not registered but combine the parts of built-in filters, such as
+ * "brighten-luma-red", are still accepted as they always have been, and are compiled into a
+ * {@link KernelFilter} when they are looked up. Names made of several filter names joined with
+ * '+' are looked up as a {@link FilterChain} of those filters.
+ */
+public final class FilterRegistry {
+  private static final Map<String, Filter> FILTERS = new LinkedHashMap<>();
+
+  static {
+    for (BuiltInFilter filter : BuiltInFilter.values()) {
+      FILTERS.put(filter.getName(), filter);
+    }
+  }
+
+  private FilterRegistry() {
+  }
+
+  /**
+   * Adds a filter to the registry, so that it can be set on layers by its name.
+   *
+   * @param filter the filter to add.
+   * @throws IllegalArgumentException if the filter is null, its name contains '+', or a filter
+   *                                  with the same name or label is already registered.
+   */
+  public static synchronized void register(Filter filter) throws IllegalArgumentException {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+    if (filter.getName().contains(FilterChain.SEPARATOR)) {
+      throw new IllegalArgumentException("Filter names cannot contain "
+              + FilterChain.SEPARATOR);
+    }
+    for (Filter registered : FILTERS.values()) {
+      if (registered.getName().equals(filter.getName())
+              || registered.getLabel().equals(filter.getLabel())) {
+        throw new IllegalArgumentException("Filter already registered: " + filter.getName());
+      }
+    }
+    FILTERS.put(filter.getName(), filter);
+  }
+
+  /**
+   * Returns the filter with the given name, compiling filter options that combine the parts of
+   * built-in filters and chaining filters whose names are joined with '+'.
+   *
+   * @param name the name of the filter.
+   * @return the filter with that name.
+   * @throws IllegalArgumentException if no filter has the given name.
+   */
+  public static synchronized Filter get(String name) throws IllegalArgumentException {
+    if (name.contains(FilterChain.SEPARATOR)) {
+      List<Filter> stages = new ArrayList<>();
+      for (String stage : name.split(Pattern.quote(FilterChain.SEPARATOR), -1)) {
+        stages.add(get(stage));
+      }
+      return FilterChain.of(stages);
+    }
+    Filter filter = FILTERS.get(name);
+    if (filter != null) {
+      return filter;
+    }
+    if (name.contains("brighten") || name.contains("darken") || name.contains("filter")
+            || name.contains("Normal") || name.contains("blend")) {
+      return new KernelFilter(name, name);
+    }
+    throw new IllegalArgumentException("Unknown filter: " + name);
+  }
+
+  /**
+   * Returns the filter shown in the GUI with the given label.
+   *
+   * @param label the display label of the filter.
+   * @return the filter with that label.
+   * @throws IllegalArgumentException if no filter has the given label.
+   */
+  public static synchronized Filter forLabel(String label) throws IllegalArgumentException {
+    for (Filter filter : FILTERS.values()) {
+      if (filter.getLabel().equals(label)) {
+        return filter;
+      }
+    }
+    throw new IllegalArgumentException("Unknown filter: " + label);
+  }
+
+  /**
+   * Returns every registered filter, built-in filters first, in the order they were registered.
+   *
+   * @return a list of the registered filters.
+   */
+  public static synchronized List<Filter> getFilters() {
+    return new ArrayList<>(FILTERS.values());
+  }
+}
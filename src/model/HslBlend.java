@@ -0,0 +1,174 @@
+package model;
+
+/**
+ * Blends packed ARGB pixels with the multiply and screen blending modes without allocating.
+ * Both modes keep the hue and saturation of the layer's pixel and replace its lightness with one
+ * computed from the lightness of the layer and of the composite beneath it.
+ * <p></p>
+ * Converting to HSL and back is not needed for that. With hue and saturation unchanged, each
+ * color channel keeps its offset from the lightness, scaled by how much room the new lightness
+ * leaves compared to the old one:
+ * <pre>
+ *   c' = L' + (c - L) * min(L', 1 - L') / min(L, 1 - L)
+ * </pre>
+ * so a blend is a handful of floating point operations on primitive locals, with no hue, no
+ * {@code double[]} per conversion, and no Pixel per result.
+ * <p></p>
+ * Results are exactly those of converting through {@link RepresentationConverter}. A channel is
+ * only rounded differently by the two calculations if it lands within rounding error of a whole
+ * number, so such pixels are computed again by the converter's own steps, inlined here on
+ * primitive locals.
+ */
+public class HslBlend {
+  // UNIT[i] is i / 255.0, the value the converter scales a color component to
+  private static final double[] UNIT = new double[256];
+  // how close to a whole number a channel can be before it is computed the converter's way
+  private static final double EDGE = 1e-7;
+
+  static {
+    for (int i = 0; i < UNIT.length; i++) {
+      UNIT[i] = i / 255.0;
+    }
+  }
+
+  /**
+   * Blends a pixel with the multiply blending mode, setting its lightness to the product of its
+   * lightness and the lightness of the pixel beneath it.
+   *
+   * @param argb the packed ARGB value of the layer's pixel.
+   * @param below the packed ARGB value of the composite beneath the pixel.
+   * @return the blended packed ARGB value, with the layer pixel's alpha.
+   */
+  protected static int multiply(int argb, int below) {
+    return withLightness(argb, lightness(argb) * lightness(below));
+  }
+
+  /**
+   * Blends a pixel with the screen blending mode, setting its lightness to
+   * (1 - L) * (1 - dL), where L is its lightness and dL is the lightness of the pixel beneath it.
+   *
+   * @param argb the packed ARGB value of the layer's pixel.
+   * @param below the packed ARGB value of the composite beneath the pixel.
+   * @return the blended packed ARGB value, with the layer pixel's alpha.
+   */
+  protected static int screen(int argb, int below) {
+    return withLightness(argb, (1 - lightness(argb)) * (1 - lightness(below)));
+  }
+
+  /**
+   * Returns the HSL lightness of a pixel, from 0 to 1.
+   *
+   * @param argb the packed ARGB value of the pixel.
+   * @return the pixel's lightness.
+   */
+  private static double lightness(int argb) {
+    int r = (argb >> 16) & 0xFF;
+    int g = (argb >> 8) & 0xFF;
+    int b = argb & 0xFF;
+    return (UNIT[Math.max(r, Math.max(g, b))] + UNIT[Math.min(r, Math.min(g, b))]) / 2;
+  }
+
+  /**
+   * Changes the lightness of a pixel, keeping its hue, saturation, and alpha.
+   *
+   * @param argb the packed ARGB value of the pixel.
+   * @param lightness the new lightness, from 0 to 1.
+   * @return the packed ARGB value with the new lightness.
+   */
+  private static int withLightness(int argb, double lightness) {
+    int r = (argb >> 16) & 0xFF;
+    int g = (argb >> 8) & 0xFF;
+    int b = argb & 0xFF;
+    int a = argb >>> 24;
+    int max = Math.max(r, Math.max(g, b));
+    int min = Math.min(r, Math.min(g, b));
+    if (max == min) {
+      // a gray pixel has no saturation, so every channel is the lightness
+      int v = (int) (lightness * 255);
+      return Raster.pack(v, v, v, a);
+    }
+
+    double old = (UNIT[max] + UNIT[min]) / 2;
+    double room = lightness < 0.5 ? lightness : 1 - lightness;
+    double oldRoom = old < 0.5 ? old : 1 - old;
+    double scale = room / oldRoom;
+    double mid = (max + min) / 2.0;
+    double base = lightness * 255;
+    double rNew = base + (r - mid) * scale;
+    double gNew = base + (g - mid) * scale;
+    double bNew = base + (b - mid) * scale;
+    if (nearWhole(rNew) || nearWhole(gNew) || nearWhole(bNew)) {
+      return convert(r, g, b, a, lightness);
+    }
+    return Raster.pack((int) rNew, (int) gNew, (int) bNew, a);
+  }
+
+  /**
+   * Returns whether a value is within rounding error of a whole number. Negative values are
+   * always treated as near one, since they can only be rounding error below 0.
+   */
+  private static boolean nearWhole(double value) {
+    double fraction = value - (int) value;
+    return fraction < EDGE || fraction > 1 - EDGE;
+  }
+
+  /**
+   * Changes the lightness of a pixel with the same steps as converting it to HSL, replacing the
+   * lightness, and converting it back with {@link RepresentationConverter}.
+   *
+   * @param r the red component of the pixel.
+   * @param g the green component of the pixel.
+   * @param b the blue component of the pixel.
+   * @param a the alpha component of the pixel.
+   * @param lightness the new lightness, from 0 to 1.
+   * @return the packed ARGB value with the new lightness.
+   */
+  private static int convert(int r, int g, int b, int a, double lightness) {
+    double red = r / 255.0;
+    double green = g / 255.0;
+    double blue = b / 255.0;
+    double componentMax = Math.max(red, Math.max(green, blue));
+    double componentMin = Math.min(red, Math.min(green, blue));
+    double delta = componentMax - componentMin;
+    double old = (componentMax + componentMin) / 2;
+
+    double hue;
+    double saturation;
+    if (delta == 0) {
+      hue = 0;
+      saturation = 0;
+    } else {
+      saturation = delta / (1 - Math.abs(2 * old - 1));
+      hue = 0;
+      if (componentMax == red) {
+        // the converter takes this modulo 6, which leaves a value from -1 to 1 unchanged
+        hue = (green - blue) / delta;
+      } else if (componentMax == green) {
+        hue = (blue - red) / delta;
+        hue += 2;
+      } else if (componentMax == blue) {
+        hue = (red - green) / delta;
+        hue += 4;
+      }
+      hue = hue * 60;
+    }
+
+    return Raster.pack((int) (channel(hue, saturation, lightness, 0) * 255),
+            (int) (channel(hue, saturation, lightness, 8) * 255),
+            (int) (channel(hue, saturation, lightness, 4) * 255), a);
+  }
+
+  /**
+   * Computes one channel of an HSL color, from 0 to 1, the same way as
+   * {@link RepresentationConverter#convertHSLtoRGB}. Hues here are from -60 to 300, so the
+   * converter's floating point modulo 12 is at most one exact subtraction.
+   */
+  private static double channel(double hue, double saturation, double lightness, int n) {
+    double k = n + (hue / 30);
+    if (k >= 12) {
+      k -= 12;
+    }
+    double a = saturation * Math.min(lightness, 1 - lightness);
+    return lightness - a * Math.max(-1, Math.min(k - 3, Math.min(9 - k, 1)));
+  }
+}
@@ -1,22 +1,19 @@
 package model;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Scanner;
 
 import javax.imageio.ImageIO;
 
 /**
- * Represents an Image that is composed of a 2D array of pixels, created by reading the pixel data
- * from a PPM image file of a given file path.
+ * Represents an Image that is composed of a raster of packed ARGB pixels, created by reading the
+ * pixel data from an image file of a given file path.
  */
 public class Image {
   private File file;
-  private Pixel[][] pixels;
+  private Raster raster;
 
   /**
    * Constructor to create a new Image object with a given image filePath as a String.
@@ -28,18 +25,29 @@ public class Image {
   }
 
   /**
-   * Returns the layer's 2D array of pixels.
+   * Returns the image's raster of packed ARGB pixels.
    *
-   * @return the layer's 2D array of pixels.
+   * @return the image's raster.
+   */
+  protected Raster getRaster() {
+    return raster;
+  }
+
+  /**
+   * Returns a copy of the image's pixels as a 2D array of Pixels.
+   *
+   * @return the image's 2D array of pixels.
    */
   protected Pixel[][] getPixels() {
-    return pixels;
+    return raster.toPixels();
   }
 
   /**
-   * Reads a PPM image file from the specified file path and stores the pixel data in the 'pixels'
-   * array. The method expects a plain P3 PPM format and ignores comment lines. An IOException is
-   * thrown if the file is not found or if there is an issue with reading the file.
+   * Reads a PPM image file from the specified file path and stores the pixel data in the image's
+   * raster. The method reads both plain P3 and raw P6 PPM formats and ignores comment lines,
+   * and scales color values to the range 0 to 255 if the file uses a different maximum value.
+   * Other image formats are read with ImageIO. An IOException is thrown if the file is not found
+   * or if there is an issue with reading the file.
    *
    * @throws IOException if the file is not found or if there is an issue with reading the file
    */
@@ -47,75 +55,51 @@ public class Image {
     String path = this.file.getName();
     String fileType = path.substring(path.indexOf(".") + 1);
 
-    if (fileType.equalsIgnoreCase("ppm")) {
-      Scanner sc;
+    if (fileType.equalsIgnoreCase("ppm") && file.isFile() && PpmCodec.isRaw(file)) {
+      this.raster = PpmCodec.readRaw(file);
+    }
+    else if (fileType.equalsIgnoreCase("ppm")) {
+      TextTokenizer tokens;
 
       try {
-        sc = new Scanner(new FileInputStream(file));
+        tokens = new TextTokenizer(file);
       }
-      catch (FileNotFoundException e) {
+      catch (IOException e) {
         throw new IOException("File not found!");
       }
-      StringBuilder builder = new StringBuilder();
-      //read the file line by line, and populate a string. This will throw away any comment lines
-      while (sc.hasNextLine()) {
-        String s = sc.nextLine();
-        if (s.charAt(0) != '#') {
-          builder.append(s + System.lineSeparator());
-        }
-      }
-
-      //now set up the scanner to read from the string we just built
-      sc = new Scanner(builder.toString());
-
-      String token;
 
-      token = sc.next();
-      if (!token.equals("P3")) {
-        System.out.println("Invalid PPM file: plain RAW file should begin with P3");
-      }
-      int width = sc.nextInt();
-      System.out.println("Width of image: " + width);
-      int height = sc.nextInt();
-      System.out.println("Height of image: " + height);
-      int maxValue = sc.nextInt();
-      System.out.println("Maximum value of a color in this file (usually 255): " + maxValue);
-
-      this.pixels = new Pixel[height][width];
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          pixels[i][j] = new Pixel(0, 0, 0, 0);
+      // comments are skipped by the tokenizer, and values are parsed straight into the raster
+      try (tokens) {
+        String token = tokens.next();
+        if (!token.equals("P3")) {
+          System.out.println("Invalid PPM file: plain RAW file should begin with P3");
         }
-      }
+        int width = tokens.nextInt();
+        System.out.println("Width of image: " + width);
+        int height = tokens.nextInt();
+        System.out.println("Height of image: " + height);
+        int maxValue = tokens.nextInt();
+        System.out.println("Maximum value of a color in this file (usually 255): " + maxValue);
+        if (maxValue < 1 || maxValue > 65535) {
+          throw new IOException("Invalid PPM file: maximum value out of range");
+        }
+
+        this.raster = new Raster(height, width, 0);
+        int[] data = raster.getData();
 
-      while (sc.hasNextInt()) {
-        for (int i = 0; i < height; i++) {
-          for (int j = 0; j < width; j++) {
-            pixels[i][j].r = sc.nextInt();
-            pixels[i][j].g = sc.nextInt();
-            pixels[i][j].b = sc.nextInt();
-            pixels[i][j].a = 255;
+        if (tokens.hasNext()) {
+          for (int i = 0; i < data.length; i++) {
+            int r = Raster.scale(tokens.nextInt(), maxValue);
+            int g = Raster.scale(tokens.nextInt(), maxValue);
+            int b = Raster.scale(tokens.nextInt(), maxValue);
+            data[i] = Raster.pack(r, g, b, 255);
           }
         }
       }
     }
     else {
       BufferedImage current = ImageIO.read(new FileInputStream(file));
-      Pixel[][] temp = new Pixel[current.getHeight()][current.getWidth()];
-
-      for (int i = 0 ; i < current.getHeight() ; i ++) {
-        for (int j = 0 ; j < current.getWidth() ; j ++) {
-          int rgb = current.getRGB(j, i);
-          Color color = new Color(rgb, true);
-          int r = color.getRed();
-          int b = color.getBlue();
-          int g = color.getGreen();
-          int a = color.getAlpha();
-          temp[i][j] = new Pixel(r, g, b, a);
-        }
-      }
-
-      this.pixels = temp;
+      this.raster = BufferedImageCodec.read(current);
     }
 
   }
@@ -0,0 +1,167 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the rasters of recently read image files, so that an image added to several layers, or
+ * to several projects in the same program, is decoded from its file only once.
+ * <p></p>
+ * Images are looked up by the canonical path of their file together with its size and last
+ * modified time, so an image file that is changed on disk is read again. The cache holds at most
+ * a given number of bytes of pixels, 4 bytes per pixel, and evicts the least recently used images
+ * to stay under it; an image larger than the whole cache is read every time. The shared cache's
+ * size defaults to 256 MB and can be set in megabytes with the "collage.imageCacheMb" system
+ * property, where 0 turns caching off.
+ * <p></p>
+ * Cached rasters are shared by everyone who reads the same image, so they must never be
+ * modified; callers copy their pixels rather than keeping the raster.
+ */
+public class ImageCache {
+  private static final String CAPACITY_PROPERTY = "collage.imageCacheMb";
+  private static final int DEFAULT_CAPACITY_MB = 256;
+  private static ImageCache shared;
+
+  private final long capacity;
+  private final LinkedHashMap<Key, Raster> rasters = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * Identifies a version of an image file by its canonical path, size, and last modified time.
+   */
+  private static final class Key {
+    private final String path;
+    private final long length;
+    private final long modified;
+
+    private Key(String path, long length, long modified) {
+      this.path = path;
+      this.length = length;
+      this.modified = modified;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return path.equals(key.path) && length == key.length && modified == key.modified;
+    }
+
+    @Override
+    public int hashCode() {
+      return (path.hashCode() * 31 + Long.hashCode(length)) * 31 + Long.hashCode(modified);
+    }
+  }
+
+  /**
+   * Constructor to create an empty ImageCache that holds up to the given number of bytes of
+   * pixels.
+   *
+   * @param capacity the most bytes of pixels the cache holds, or 0 to cache nothing.
+   * @throws IllegalArgumentException if the capacity is negative.
+   */
+  protected ImageCache(long capacity) throws IllegalArgumentException {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity can't be negative!");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the cache shared by every project in the program, creating it on first use.
+   *
+   * @return the shared image cache.
+   */
+  protected static synchronized ImageCache getShared() {
+    if (shared == null) {
+      int megabytes = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY_MB);
+      shared = new ImageCache(Math.max(0, megabytes) * 1024L * 1024L);
+    }
+    return shared;
+  }
+
+  /**
+   * Returns the raster of the given image file, reading it only if the same version of the file
+   * is not already cached. Two threads asking for an image that is not cached may both read it.
+   *
+   * @param file the image file.
+   * @return the image's raster, which must not be modified.
+   * @throws IOException if the file is not found or if there is an issue with reading the file.
+   */
+  protected Raster read(File file) throws IOException {
+    if (capacity == 0 || !file.isFile()) {
+      return decode(file);
+    }
+    Key key = new Key(file.getCanonicalPath(), file.length(), file.lastModified());
+    synchronized (this) {
+      Raster raster = rasters.get(key);
+      if (raster != null) {
+        return raster;
+      }
+    }
+
+    Raster raster = decode(file);
+    long bytes = bytes(raster);
+    if (bytes <= capacity) {
+      synchronized (this) {
+        if (rasters.putIfAbsent(key, raster) == null) {
+          size += bytes;
+          evict();
+        }
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Returns the number of bytes of pixels in the cache.
+   *
+   * @return the size of the cache in bytes.
+   */
+  protected synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the number of images in the cache.
+   *
+   * @return the number of cached images.
+   */
+  protected synchronized int getCount() {
+    return rasters.size();
+  }
+
+  /**
+   * Removes every image from the cache.
+   */
+  protected synchronized void clear() {
+    rasters.clear();
+    size = 0;
+  }
+
+  /**
+   * Removes the least recently used images until the cache is no larger than its capacity.
+   */
+  private void evict() {
+    Iterator<Map.Entry<Key, Raster>> entries = rasters.entrySet().iterator();
+    while (size > capacity && entries.hasNext()) {
+      size -= bytes(entries.next().getValue());
+      entries.remove();
+    }
+  }
+
+  private static Raster decode(File file) throws IOException {
+    Image image = new Image(file);
+    image.readImage();
+    return image.getRaster();
+  }
+
+  private static long bytes(Raster raster) {
+    return 4L * raster.getHeight() * raster.getWidth();
+  }
+}
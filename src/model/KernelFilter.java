@@ -0,0 +1,59 @@
+package model;
+
+/**
+ * Represents a filter applied by a {@link FilterKernel}. The built-in filters are kernel filters
+ * built from the kernel's parts directly, and filter options that combine the parts of several
+ * built-in filters, such as "brighten-luma-red", are kernel filters compiled from their names.
+ */
+public class KernelFilter implements Filter {
+  private final String name;
+  private final String label;
+  private final FilterKernel kernel;
+
+  /**
+   * Constructor to create a KernelFilter by compiling the given filter option.
+   *
+   * @param name the filter option the filter is compiled from.
+   * @param label the name the filter is shown with in the GUI.
+   */
+  protected KernelFilter(String name, String label) {
+    this(name, label, FilterKernel.compile(name));
+  }
+
+  /**
+   * Constructor to create a KernelFilter that applies the given kernel.
+   *
+   * @param name the name the filter is set by.
+   * @param label the name the filter is shown with in the GUI.
+   * @param kernel the kernel that applies the filter.
+   */
+  protected KernelFilter(String name, String label, FilterKernel kernel) {
+    this.name = name;
+    this.label = label;
+    this.kernel = kernel;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getLabel() {
+    return label;
+  }
+
+  @Override
+  public boolean isBlend() {
+    return kernel.isBlend();
+  }
+
+  @Override
+  public void apply(int[] data, int[] composite, int[] out, int from, int to) {
+    if (kernel.isBlend()) {
+      kernel.apply(data, composite, out, from, to);
+    } else {
+      kernel.apply(data, out, from, to);
+    }
+  }
+}
@@ -1,14 +1,42 @@
 package model;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Layer class represents a single layer in the project. The layer is used to represent a
  * representation of images where filters can be applied to alter the apperance.
  */
 public class Layer {
   private final String name;
-  private String filterName;
-  private Pixel[][] pixels;
-  private RepresentationConverter rc;
+  private Filter filter;
+  private int height;
+  private int width;
+  private volatile Raster raster;
+  private final int defaultPixel;
+  private RasterLoader loader;
+  private volatile boolean defaultPixels;
+  private TileGrid tiles;
+  private int version;
+  private int[] tileVersions;
+  private int[] pixelVersions;
+  private int[] emptyCheckedAt;
+  private boolean[] emptyTiles;
+
+  /**
+   * Represents a source that a layer's pixels are read from the first time they are needed.
+   */
+  protected interface RasterLoader {
+
+    /**
+     * Creates the layer's raster.
+     *
+     * @return the layer's pixels, sized to the canvas.
+     * @throws IOException if the pixels could not be read.
+     */
+    Raster load() throws IOException;
+  }
 
   /**
    * Constructor to create a Layer with a given name, canvas height, and canvas width.
@@ -19,15 +47,7 @@ public class Layer {
    * @param width the width of the canvas.
    */
   protected Layer(String name, int height, int width) {
-    this.name = name;
-    this.filterName = "Normal";
-    this.pixels = new Pixel[height][width];
-    this.rc = new RepresentationConverter();
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        pixels[i][j] = new Pixel(255, 255, 255, 0);
-      }
-    }
+    this(name, height, width, Raster.pack(255, 255, 255, 0));
   }
 
   /**
@@ -38,15 +58,42 @@ public class Layer {
    * @param width the width of the canvas.
    */
   protected Layer(int height, int width) {
-    this.name = "bg";
-    this.filterName = "Normal";
-    this.pixels = new Pixel[height][width];
-    this.rc = new RepresentationConverter();
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        pixels[i][j] = new Pixel(255, 255, 255, 255);
-      }
-    }
+    this("bg", height, width, Raster.pack(255, 255, 255, 255));
+  }
+
+  /**
+   * Constructor to create a Layer with a given name and canvas size where every pixel starts
+   * as the given packed ARGB value.
+   *
+   * @param name the name of the layer.
+   * @param height the height of the canvas.
+   * @param width the width of the canvas.
+   * @param defaultPixel the packed ARGB value every pixel starts with.
+   */
+  protected Layer(String name, int height, int width, int defaultPixel) {
+    this.name = name;
+    this.filter = BuiltInFilter.NORMAL;
+    this.height = height;
+    this.width = width;
+    this.defaultPixel = defaultPixel;
+    this.loader = () -> new Raster(height, width, defaultPixel);
+    this.defaultPixels = true;
+    initTiles(Raster.alpha(defaultPixel) == 0);
+  }
+
+  /**
+   * Sets up the tile grid over the layer's raster, recording whether every tile starts out
+   * fully transparent.
+   *
+   * @param empty whether the layer starts out fully transparent.
+   */
+  private void initTiles(boolean empty) {
+    this.tiles = new TileGrid(height, width);
+    this.tileVersions = new int[tiles.getTileCount()];
+    this.pixelVersions = new int[tiles.getTileCount()];
+    this.emptyCheckedAt = new int[tiles.getTileCount()];
+    this.emptyTiles = new boolean[tiles.getTileCount()];
+    Arrays.fill(emptyTiles, empty);
   }
 
   /**
@@ -59,207 +106,399 @@ public class Layer {
   }
 
   /**
-   * Returns the filter associated with this layer.
+   * Returns the height of the layer's canvas.
+   *
+   * @return the height of the layer.
+   */
+  protected int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the width of the layer's canvas.
+   *
+   * @return the width of the layer.
+   */
+  protected int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the name of the filter associated with this layer. A stack of filters is named by
+   * the names of its filters joined with '+'.
    *
    * @return the filter associated with this layer.
    */
   protected String getFilterName() {
-    return filterName;
+    return filter.getName();
+  }
+
+  /**
+   * Returns the filter associated with this layer.
+   *
+   * @return the layer's filter.
+   */
+  protected Filter getFilter() {
+    return filter;
+  }
+
+  /**
+   * Returns the layer's raster of packed ARGB pixels. A layer's raster is only created the first
+   * time it is needed, so the first call may read the layer's pixels from its loader.
+   *
+   * @return the layer's raster.
+   * @throws IllegalStateException if the layer's pixels could not be read.
+   */
+  protected Raster getRaster() throws IllegalStateException {
+    Raster current = raster;
+    if (current == null) {
+      synchronized (this) {
+        current = raster;
+        if (current == null) {
+          try {
+            current = loader.load();
+          } catch (IOException e) {
+            throw new IllegalStateException("Could not read the pixels of layer " + name, e);
+          }
+          // the raster may be edited in place from now on
+          defaultPixels = false;
+          loader = null;
+          raster = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Updates the layer's pixels by setting its raster to the given raster. The raster does not
+   * have to match the canvas size.
+   *
+   * @param newRaster the new raster of packed ARGB pixels.
+   */
+  protected void updateRaster(Raster newRaster) {
+    synchronized (this) {
+      loader = null;
+      defaultPixels = false;
+      raster = newRaster;
+    }
+    if (newRaster.getHeight() != height || newRaster.getWidth() != width) {
+      height = newRaster.getHeight();
+      width = newRaster.getWidth();
+      initTiles(false);
+    }
+    markChanged();
+  }
+
+  /**
+   * Sets where the layer's pixels are read from, replacing its current pixels. The pixels are
+   * not read until the layer is first rendered or edited, so a layer that is never used never
+   * takes up memory. The loader must produce a raster the size of the canvas.
+   *
+   * @param pixels the source of the layer's new pixels.
+   */
+  protected void deferRaster(RasterLoader pixels) {
+    synchronized (this) {
+      loader = pixels;
+      defaultPixels = false;
+      raster = null;
+    }
+    // whether a tile is transparent can only be known once the pixels are read
+    Arrays.fill(emptyCheckedAt, -1);
+    markChanged();
+  }
+
+  /**
+   * Returns whether the layer still has the pixels it was created with, transparent white for a
+   * named layer or opaque white for the background, and they have never been read or edited.
+   * Such a layer's raster has not been created yet.
+   *
+   * @return true if the layer's pixels are untouched.
+   */
+  protected boolean hasDefaultPixels() {
+    return defaultPixels;
+  }
+
+  /**
+   * Returns whether the layer's raster has been created, either because its pixels were read or
+   * edited or because a raster was given to it.
+   *
+   * @return true if the layer's pixels are in memory.
+   */
+  protected boolean isLoaded() {
+    return raster != null;
+  }
+
+  /**
+   * Returns the packed ARGB value every pixel of the layer starts with.
+   *
+   * @return the layer's default pixel value.
+   */
+  protected int getDefaultPixel() {
+    return defaultPixel;
   }
 
   /**
-   * Returns the layer's 2D array of pixels.
+   * Returns a copy of the layer's pixels as a 2D array of Pixels.
    *
    * @return the layer's 2D array of pixels.
    */
   protected Pixel[][] getPixels() {
-    return pixels;
+    return getRaster().toPixels();
   }
 
   /**
-   * Updates the layer's 2D array of pixels by setting it to the new given 2D array of pixels.
+   * Updates the layer's pixels by setting them to the new given 2D array of pixels.
    *
    * @param newPixels the new 2D array of pixels.
    */
   protected void updatePixels(Pixel[][] newPixels) {
-    pixels = newPixels;
+    updateRaster(Raster.fromPixels(newPixels));
   }
 
   /**
-   * Sets the filter associated with the layer to the given filter.
+   * Records that the layer's pixels or filter have changed everywhere on the canvas. Must be
+   * called after the layer's raster is edited in place so that cached renders of the layer are
+   * recomputed.
+   */
+  protected void markChanged() {
+    version++;
+    Arrays.fill(tileVersions, version);
+    Arrays.fill(pixelVersions, version);
+  }
+
+  /**
+   * Records that the layer's pixels have changed within the given area of the canvas, so that
+   * only the tiles overlapping that area are recomputed by cached renders.
    *
-   * @param filterOption the name of the given filter.
-   * @throws IllegalArgumentException if the given filter is invalid.
+   * @param fromRow the first row of the changed area.
+   * @param toRow the row after the last row of the changed area.
+   * @param fromCol the first column of the changed area.
+   * @param toCol the column after the last column of the changed area.
    */
-  protected void setFilter(String filterOption) throws IllegalArgumentException {
-    if (!(filterOption.contains("brighten") || filterOption.contains("darken")
-            || filterOption.contains("filter") || filterOption.contains("Normal")
-            || filterOption.contains("blend"))) {
-      throw new IllegalArgumentException();
-    }
-    filterName = filterOption;
+  protected void markChanged(int fromRow, int toRow, int fromCol, int toCol) {
+    version++;
+    tiles.forEachTileIn(fromRow, toRow, fromCol, toCol, tile -> {
+      tileVersions[tile] = version;
+      pixelVersions[tile] = version;
+    });
   }
 
   /**
-   * Applies a filter effect to the layer's pixels based on the specified filter option.
-   * A filter option can be a combination of a brightness adjustments (brighten/darken) with a
-   * calculation method (value/intensity/luma) or a color channel isolation (red/green/blue).
+   * Records that the layer's filter has changed, which changes how every tile is rendered but
+   * leaves the layer's pixels as they are.
+   */
+  private void markFilterChanged() {
+    version++;
+    Arrays.fill(tileVersions, version);
+  }
+
+  /**
+   * Returns a number that changes every time the layer's pixels or filter change, so that a
+   * cached render of the layer can tell whether it is still up to date.
    *
-   * @param filterOption the filter option to be applied to the layer's pixels.
+   * @return the layer's current version.
    */
-  protected void addFilter(String filterOption) {
-    for (int i = 0; i < pixels.length; i++) {
-      for (int j = 0; j < pixels[0].length; j++) {
-        int inc = 0;
-        if (filterOption.contains("value")) {
-          inc = this.getValue(pixels[i][j].r, pixels[i][j].g, pixels[i][j].b);
-        } else if (filterOption.contains("intensity")) {
-          inc = this.getIntensity(pixels[i][j].r, pixels[i][j].g, pixels[i][j].b);
-        } else if (filterOption.contains("luma")) {
-          inc = this.getLuma(pixels[i][j].r, pixels[i][j].g, pixels[i][j].b);
-        }
+  protected int getVersion() {
+    return version;
+  }
 
-        int r = pixels[i][j].r;
-        int g = pixels[i][j].g;
-        int b = pixels[i][j].b;
-
-        if (filterOption.contains("brighten")) {
-          r = pixels[i][j].r + inc;
-          g = pixels[i][j].g + inc;
-          b = pixels[i][j].b + inc;
-        } else if (filterOption.contains("darken")) {
-          r = pixels[i][j].r - inc;
-          g = pixels[i][j].g - inc;
-          b = pixels[i][j].b - inc;
-        }
+  /**
+   * Returns the tile grid the layer's changes are tracked by.
+   *
+   * @return the layer's tile grid.
+   */
+  protected TileGrid getTiles() {
+    return tiles;
+  }
 
-        if (filterOption.contains("red")) {
-          g = 0;
-          b = 0;
-        } else if (filterOption.contains("green")) {
-          r = 0;
-          b = 0;
-        } else if (filterOption.contains("blue")) {
-          r = 0;
-          g = 0;
-        }
+  /**
+   * Returns the layer's version at the time the given tile last changed. A tile has changed
+   * since a cached render was made at some version if its tile version is greater.
+   *
+   * @param tile the tile number.
+   * @return the version the tile last changed at.
+   */
+  protected int getTileVersion(int tile) {
+    return tileVersions[tile];
+  }
 
-        pixels[i][j] = new Pixel(r, g, b, pixels[i][j].a);
-      }
+  /**
+   * Returns the layer's version at the time the pixels of the given tile last changed. Unlike
+   * the tile version, it does not change when the layer's filter does, so copies made from the
+   * layer's unfiltered pixels can tell whether they are still up to date.
+   *
+   * @param tile the tile number.
+   * @return the version the tile's pixels last changed at.
+   */
+  protected int getPixelVersion(int tile) {
+    return pixelVersions[tile];
+  }
+
+  /**
+   * Returns whether every pixel of the given tile is fully transparent. A fully transparent
+   * tile looks the same under every filter, so renders can skip it. The answer is remembered
+   * until the tile changes.
+   *
+   * @param tile the tile number.
+   * @return true if every pixel in the tile has an alpha of 0.
+   */
+  protected boolean isTileEmpty(int tile) {
+    if (defaultPixels) {
+      // untouched pixels are all the default pixel, and scanning them would create the raster
+      return Raster.alpha(defaultPixel) == 0;
     }
+    if (emptyCheckedAt[tile] != tileVersions[tile]) {
+      emptyTiles[tile] = checkTileEmpty(tile);
+      emptyCheckedAt[tile] = tileVersions[tile];
+    }
+    return emptyTiles[tile];
   }
 
   /**
-   * Applies a filter effect to the layer's pixels based on the specified filter option.
-   * Difference
-   * Multiply
-   * Screen
+   * Scans the pixels of the given tile for any that are not fully transparent.
    *
-   * @param filterOption the filter option to be applied to the layer's pixels.
+   * @param tile the tile number.
+   * @return true if every pixel in the tile has an alpha of 0.
    */
-  protected void addFilter(String filterOption, Pixel[][] composite) {
-    for (int i = 0; i < pixels.length; i++) {
-      for (int j = 0; j < pixels[0].length; j++) {
-        if (filterOption.contains("difference")) {
-          int rTwo = this.getDifference(pixels[i][j].r, composite[i][j].r);
-          int gTwo = this.getDifference(pixels[i][j].g, composite[i][j].g);
-          int bTwo = this.getDifference(pixels[i][j].b, composite[i][j].b);
-
-          pixels[i][j] = new Pixel(rTwo, gTwo, bTwo, pixels[i][j].a);
-        } else if (filterOption.contains("multiply")) {
-          double r = pixels[i][j].r;
-          double g = pixels[i][j].g;
-
-          double[] cur = this.rc.convertRGBtoHSL(r, g, pixels[i][j].b);
-          double[] comp = this.rc.convertRGBtoHSL(composite[i][j].r, composite[i][j].g,
-                  composite[i][j].b);
-
-          double b = this.getMultiply(cur[2], comp[2]);
-
-          Pixel p = this.rc.convertHSLtoRGB(cur[0], cur[1], b);
-          pixels[i][j] = new Pixel(p.r, p.g, p.b, pixels[i][j].a);
-        } else if (filterOption.contains("screen")) {
-          double r = pixels[i][j].r;
-          double g = pixels[i][j].g;
-          double[] cur = this.rc.convertRGBtoHSL(r, g, pixels[i][j].b);
-          double[] comp = this.rc.convertRGBtoHSL(composite[i][j].r, composite[i][j].g,
-                  composite[i][j].b);
-
-          double b = this.getScreen(cur[2], comp[2]);
-
-          Pixel p = this.rc.convertHSLtoRGB(cur[0], cur[1], b);
-          pixels[i][j] = new Pixel(p.r, p.g, p.b, pixels[i][j].a);
+  private boolean checkTileEmpty(int tile) {
+    Raster raster = getRaster();
+    int[] data = raster.getData();
+    int width = raster.getWidth();
+    for (int i = tiles.getRowStart(tile); i < tiles.getRowEnd(tile); i++) {
+      for (int j = i * width + tiles.getColStart(tile); j < i * width + tiles.getColEnd(tile);
+           j++) {
+        if (Raster.alpha(data[j]) != 0) {
+          return false;
         }
       }
     }
+    return true;
   }
 
   /**
-   * Calculates blending difference between the two pixel values. Takes the pixel values of the
-   * current layer and the composite image and returns difference.
+   * Sets the filter associated with the layer to the given filter.
    *
+   * @param filterOption the name of the given filter.
+   * @throws IllegalArgumentException if the given filter is invalid.
+   */
+  protected void setFilter(String filterOption) throws IllegalArgumentException {
+    filter = FilterRegistry.get(filterOption);
+    markFilterChanged();
+  }
+
+  /**
+   * Sets the filter associated with the layer to the given filter, which may be a stack of
+   * filters.
    *
+   * @param filter the layer's new filter.
+   * @throws IllegalArgumentException if the filter is null.
    */
-  private int getDifference(int currentPixel, int compositePixel) {
-    return currentPixel - compositePixel;
+  protected void setFilter(Filter filter) throws IllegalArgumentException {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null!");
+    }
+    this.filter = filter;
+    markFilterChanged();
   }
 
   /**
-   * Calculates blending value for multiply filter between the two pixel values. Takes HSL component
-   * of the current layer and multiplies lightness factor by lightness factor of the composite layer
-   * below.
+   * Adds the given filter to the end of the layer's stack of filters, so that it is applied to
+   * the output of the filters already set on the layer.
+   *
+   * @param filterOption the name of the filter to add.
+   * @throws IllegalArgumentException if the given filter is invalid.
+   */
+  protected void appendFilter(String filterOption) throws IllegalArgumentException {
+    filter = FilterChain.of(List.of(filter, FilterRegistry.get(filterOption)));
+    markFilterChanged();
+  }
+
+  /**
+   * Applies a filter effect to the layer's pixels based on the specified filter option.
+   * Blending filters need the composite beneath the layer, so they leave the pixels unchanged
+   * here.
+   *
+   * @param filterOption the filter option to be applied to the layer's pixels.
+   * @throws IllegalArgumentException if the given filter is invalid.
    */
-  private double getMultiply(double currentPixel, double compositePixel) {
-    return currentPixel * compositePixel;
+  protected void addFilter(String filterOption) throws IllegalArgumentException {
+    Filter filter = FilterRegistry.get(filterOption);
+    if (filter.isBlend()) {
+      return;
+    }
+    applyInPlace(filter, null);
   }
 
   /**
-   * Calculates blending value for screen filter between two pixel values. Takes HSL component of
-   * the current layer and returns lightness value according to equation below.
-   * ((1 - L) * (1 - dL))
+   * Applies a filter effect to the layer's pixels based on the specified filter option.
+   * Difference
+   * Multiply
+   * Screen
+   *
+   * @param filterOption the filter option to be applied to the layer's pixels.
+   * @param composite the composite image beneath the layer.
+   * @throws IllegalArgumentException if the given filter is invalid.
    */
-  private double getScreen(double currentPixel, double compositePixel) {
-    return (1 - currentPixel) * (1 - compositePixel);
+  protected void addFilter(String filterOption, Raster composite)
+          throws IllegalArgumentException {
+    applyInPlace(FilterRegistry.get(filterOption), composite.getData());
   }
 
   /**
-   * Calculates the value of a pixel based on its red, green, and blue color values.
-   * The value is the maximum of the three color values.
+   * Applies the given filter to the layer's own pixels, a band of rows at a time.
    *
-   * @param r the red color value of the pixel.
-   * @param g the green color value of the pixel.
-   * @param b the blue color value of the pixel.
-   * @return the value of the pixel.
+   * @param filter the filter to apply.
+   * @param below the packed ARGB values of the composite beneath the layer, or null.
    */
-  private int getValue(int r, int g, int b) {
-    return Math.max(Math.max(r, g), b);
+  private void applyInPlace(Filter filter, int[] below) {
+    Raster raster = getRaster();
+    int[] data = raster.getData();
+    int width = raster.getWidth();
+    RenderPool.getShared().forEachBand(raster.getHeight(), width, (fromRow, toRow) ->
+            filter.apply(data, below, data, fromRow * width, toRow * width));
+    markChanged();
   }
 
   /**
-   * Calculates the intensity of a pixel based on its red, green, and blue color values.
-   * The intensity is the average of the three color values.
+   * Returns a copy of the layer's raster with the layer's own filter applied to it, leaving the
+   * layer's pixels unchanged. Blending filters are applied against the given composite.
    *
-   * @param r the red color value of the pixel.
-   * @param g the green color value of the pixel.
-   * @param b the blue color value of the pixel.
-   * @return the intensity of the pixel.
+   * @param composite the composite image beneath the layer, used by blending filters.
+   * @return a filtered copy of the layer's raster.
    */
-  private int getIntensity(int r, int g, int b) {
-    return (r + g + b) / 3;
+  protected Raster getFilteredRaster(Raster composite) {
+    Raster raster = getRaster();
+    int[] data = raster.getData();
+    int[] filtered = new int[data.length];
+    int width = raster.getWidth();
+    Filter filter = this.filter;
+    int[] below = filter.isBlend() ? composite.getData() : null;
+    RenderPool.getShared().forEachBand(raster.getHeight(), width, (fromRow, toRow) ->
+            filter.apply(data, below, filtered, fromRow * width, toRow * width));
+    return new Raster(raster.getHeight(), width, filtered);
   }
 
   /**
-   * Calculates the luma of a pixel based on its red, green, and blue color values.
-   * The luma is a weighted sum of the color values that represents the perceived brightness
-   * of the pixel.
+   * Applies the layer's own filter to an area of the layer's pixels, writing the filtered pixels
+   * to the same area of the output array. The layer's pixels are left unchanged. Blending filters
+   * are applied against the same area of the given composite.
    *
-   * @param r the red color value of the pixel.
-   * @param g the green color value of the pixel.
-   * @param b the blue color value of the pixel.
-   * @return the luma of the pixel.
+   * @param composite the packed ARGB values of the composite beneath the layer.
+   * @param out the array the filtered values are written to, the same size as the layer.
+   * @param fromRow the first row of the area.
+   * @param toRow the row after the last row of the area.
+   * @param fromCol the first column of the area.
+   * @param toCol the column after the last column of the area.
    */
-  private int getLuma(int r, int g, int b) {
-    double luma = r * 0.2126 + g * 0.7152 + b * 0.0722;
-    return (int) luma;
+  protected void filterRegion(int[] composite, int[] out, int fromRow, int toRow,
+                              int fromCol, int toCol) {
+    Raster raster = getRaster();
+    int[] data = raster.getData();
+    int width = raster.getWidth();
+    Filter filter = this.filter;
+    for (int i = fromRow; i < toRow; i++) {
+      filter.apply(data, composite, out, i * width + fromCol, i * width + toCol);
+    }
   }
 }
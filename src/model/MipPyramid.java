@@ -0,0 +1,201 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps smaller copies of a layer for showing the collage zoomed out. Level 0 is the layer
+ * itself, and every level after it is half the height and width of the level before, rounded
+ * up, with each pixel the average of the two by two block of pixels it covers. Colors are
+ * averaged by alpha, so fully transparent pixels do not tint the pixels next to them.
+ * <p></p>
+ * Levels are ordinary layers with the same filter as the layer they are made from, so a
+ * compositor the size of a level renders a preview of the collage from them. The filters work
+ * one pixel at a time, so filtering a smaller copy gives nearly the same result as shrinking
+ * the filtered layer. A level is only built the first time it is asked for, and after that only
+ * the tiles of it that cover tiles changed in the level before it are made again.
+ */
+public class MipPyramid {
+  private final List<Layer> levels;
+  private final List<Integer> seenVersions;
+
+  /**
+   * Constructor to create a MipPyramid over the given layer, with no smaller levels built yet.
+   *
+   * @param layer the layer at level 0.
+   * @throws IllegalArgumentException if the layer is null.
+   */
+  protected MipPyramid(Layer layer) throws IllegalArgumentException {
+    if (layer == null) {
+      throw new IllegalArgumentException("Layer cannot be null!");
+    }
+    this.levels = new ArrayList<>();
+    this.seenVersions = new ArrayList<>();
+    levels.add(layer);
+    seenVersions.add(layer.getVersion());
+  }
+
+  /**
+   * Returns the size of a canvas dimension at a given level, which is halved and rounded up once
+   * per level.
+   *
+   * @param size the height or width at level 0.
+   * @param level the level.
+   * @return the height or width at that level.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  protected static int levelSize(int size, int level) throws IllegalArgumentException {
+    if (level < 0) {
+      throw new IllegalArgumentException("Level cannot be negative!");
+    }
+    for (int k = 0; k < level; k++) {
+      size = (size + 1) / 2;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the layer the pyramid is built over.
+   *
+   * @return the layer at level 0.
+   */
+  protected Layer getLayer() {
+    return levels.get(0);
+  }
+
+  /**
+   * Returns the copy of the layer at the given level, first bringing it and every level above
+   * it up to date with the layer. The returned layer belongs to the pyramid and must not be
+   * edited.
+   *
+   * @param level the level, where 0 is the layer itself.
+   * @return the layer's copy at that level.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  protected Layer getLevel(int level) throws IllegalArgumentException {
+    if (level < 0) {
+      throw new IllegalArgumentException("Level cannot be negative!");
+    }
+    for (int k = 1; k <= level; k++) {
+      if (k == levels.size()) {
+        Layer above = levels.get(k - 1);
+        levels.add(new Layer(above.getName(), levelSize(above.getHeight(), 1),
+                levelSize(above.getWidth(), 1), above.getDefaultPixel()));
+        seenVersions.add(-1);
+      }
+      syncLevel(k);
+    }
+    return levels.get(level);
+  }
+
+  /**
+   * Brings a level up to date with the level above it, shrinking again only the tiles of the
+   * level above whose pixels changed since the level was last brought up to date. A new filter
+   * is passed on without shrinking anything.
+   *
+   * @param k the level to update, at least 1.
+   */
+  private void syncLevel(int k) {
+    Layer above = levels.get(k - 1);
+    Layer level = levels.get(k);
+    if (level.getFilter() != above.getFilter()) {
+      level.setFilter(above.getFilter());
+    }
+    int seen = seenVersions.get(k);
+    if (above.getVersion() == seen) {
+      return;
+    }
+    seenVersions.set(k, above.getVersion());
+    if (above.hasDefaultPixels()) {
+      // both still have the pixels they were created with, so there is nothing to shrink
+      return;
+    }
+    if (level.hasDefaultPixels()) {
+      // the level above was just read or edited for the first time, so every tile is shrunk
+      level.updateRaster(new Raster(level.getHeight(), level.getWidth(),
+              level.getDefaultPixel()));
+      seen = -1;
+    }
+
+    Raster src = above.getRaster();
+    Raster dest = level.getRaster();
+    TileGrid tiles = above.getTiles();
+    int tilesAcross = tiles.getTilesAcross();
+    boolean[] changed = new boolean[tiles.getTileCount()];
+    for (int tile = 0; tile < changed.length; tile++) {
+      changed[tile] = above.getPixelVersion(tile) > seen;
+    }
+    int bandLength = level.getWidth() * tiles.getTileSize();
+    RenderPool.getShared().forEachBand(tiles.getTilesDown(), bandLength, (fromBand, toBand) -> {
+        for (int tile = fromBand * tilesAcross; tile < toBand * tilesAcross; tile++) {
+          if (changed[tile]) {
+            shrink(src, dest, tiles.getRowStart(tile) / 2, (tiles.getRowEnd(tile) + 1) / 2,
+                    tiles.getColStart(tile) / 2, (tiles.getColEnd(tile) + 1) / 2);
+          }
+        }
+      });
+    for (int tile = 0; tile < changed.length; tile++) {
+      if (changed[tile]) {
+        level.markChanged(tiles.getRowStart(tile) / 2, (tiles.getRowEnd(tile) + 1) / 2,
+                tiles.getColStart(tile) / 2, (tiles.getColEnd(tile) + 1) / 2);
+      }
+    }
+  }
+
+  /**
+   * Fills an area of a raster with the averages of the two by two blocks of a raster twice its
+   * size. Blocks on the bottom and right edges of an odd sized raster are cut short and averaged
+   * over the pixels they have.
+   *
+   * @param src the larger raster.
+   * @param dest the raster half its size, rounded up.
+   * @param fromRow the first row of the area of the smaller raster.
+   * @param toRow the row after the last row of the area.
+   * @param fromCol the first column of the area.
+   * @param toCol the column after the last column of the area.
+   */
+  private static void shrink(Raster src, Raster dest, int fromRow, int toRow, int fromCol,
+                             int toCol) {
+    int[] in = src.getData();
+    int[] out = dest.getData();
+    int srcHeight = src.getHeight();
+    int srcWidth = src.getWidth();
+    int destWidth = dest.getWidth();
+    for (int i = fromRow; i < toRow; i++) {
+      int rows = Math.min(2, srcHeight - 2 * i);
+      for (int j = fromCol; j < toCol; j++) {
+        int cols = Math.min(2, srcWidth - 2 * j);
+        int a = 0;
+        int r = 0;
+        int g = 0;
+        int b = 0;
+        int plainR = 0;
+        int plainG = 0;
+        int plainB = 0;
+        for (int y = 0; y < rows; y++) {
+          int index = (2 * i + y) * srcWidth + 2 * j;
+          for (int x = 0; x < cols; x++) {
+            int argb = in[index + x];
+            int alpha = Raster.alpha(argb);
+            a += alpha;
+            r += Raster.red(argb) * alpha;
+            g += Raster.green(argb) * alpha;
+            b += Raster.blue(argb) * alpha;
+            plainR += Raster.red(argb);
+            plainG += Raster.green(argb);
+            plainB += Raster.blue(argb);
+          }
+        }
+        int count = rows * cols;
+        if (a == 0) {
+          // nothing shows through, so keep the plain average color of the block
+          out[i * destWidth + j] = Raster.pack((plainR + count / 2) / count,
+                  (plainG + count / 2) / count, (plainB + count / 2) / count, 0);
+        } else {
+          out[i * destWidth + j] = Raster.pack((r + a / 2) / a, (g + a / 2) / a,
+                  (b + a / 2) / a, (a + count / 2) / count);
+        }
+      }
+    }
+  }
+}
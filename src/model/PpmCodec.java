@@ -0,0 +1,262 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static model.Project.MAX_CLAMP;
+
+/**
+ * Reads and writes PPM images. Plain PPM (P3) files store every color value as decimal text,
+ * while raw PPM (P6) files store them as bytes after a short text header, which makes them a
+ * quarter of the size and much faster to read and write.
+ * <p></p>
+ * Raw images are streamed through a fixed-size buffer on a FileChannel, directly between the
+ * file and a Raster, so no copy of the whole file is ever held in memory.
+ */
+public class PpmCodec {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Returns whether the given file is a raw (P6) PPM file, by checking its magic number.
+   *
+   * @param file the PPM file.
+   * @return true if the file starts with "P6".
+   * @throws IOException if the file could not be read.
+   */
+  protected static boolean isRaw(File file) throws IOException {
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      return in.read() == 'P' && in.read() == '6';
+    }
+  }
+
+  /**
+   * Reads a raw (P6) PPM file into a Raster of opaque pixels. Header comments are skipped.
+   * Color values are scaled to the range 0 to 255 if the file uses a different maximum value,
+   * and files with a maximum value above 255 are read with two bytes per value.
+   *
+   * @param file the PPM file to read.
+   * @return a Raster holding the image's pixels.
+   * @throws IOException if the file could not be read or is not a valid P6 file.
+   */
+  protected static Raster readRaw(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      buffer.flip();
+
+      if (!"P6".equals(nextHeaderToken(channel, buffer))) {
+        throw new IOException("Invalid PPM file: raw file should begin with P6");
+      }
+      int width = parseHeaderInt(nextHeaderToken(channel, buffer));
+      int height = parseHeaderInt(nextHeaderToken(channel, buffer));
+      int maxValue = parseHeaderInt(nextHeaderToken(channel, buffer));
+      if (maxValue < 1 || maxValue > 65535) {
+        throw new IOException("Invalid PPM file: maximum value out of range");
+      }
+
+      Raster raster = new Raster(height, width, 0);
+      int[] data = raster.getData();
+      int bytesPerPixel = maxValue < 256 ? 3 : 6;
+      int i = 0;
+      while (i < data.length) {
+        if (buffer.remaining() < bytesPerPixel) {
+          fill(channel, buffer, bytesPerPixel);
+        }
+        byte[] bytes = buffer.array();
+        int pos = buffer.position();
+        int count = Math.min(buffer.remaining() / bytesPerPixel, data.length - i);
+        if (bytesPerPixel == 3 && maxValue == 255) {
+          for (int end = i + count; i < end; i++, pos += 3) {
+            data[i] = 0xFF000000 | (bytes[pos] & 0xFF) << 16 | (bytes[pos + 1] & 0xFF) << 8
+                    | (bytes[pos + 2] & 0xFF);
+          }
+        } else {
+          int sampleBytes = bytesPerPixel / 3;
+          for (int end = i + count; i < end; i++, pos += bytesPerPixel) {
+            int r = Raster.scale(sample(bytes, pos, sampleBytes), maxValue);
+            int g = Raster.scale(sample(bytes, pos + sampleBytes, sampleBytes), maxValue);
+            int b = Raster.scale(sample(bytes, pos + 2 * sampleBytes, sampleBytes), maxValue);
+            data[i] = Raster.pack(r, g, b, 255);
+          }
+        }
+        buffer.position(pos);
+      }
+      return raster;
+    }
+  }
+
+  /**
+   * Writes the given Raster to a raw (P6) PPM file with a maximum value of 255. Alpha is
+   * dropped, since PPM images have no alpha channel.
+   *
+   * @param raster the pixels to write.
+   * @param file the file to write to.
+   * @throws IOException if the file could not be written.
+   */
+  protected static void writeRaw(Raster raster, File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      String header = "P6\n" + raster.getWidth() + " " + raster.getHeight() + "\n255\n";
+      buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+
+      int[] data = raster.getData();
+      byte[] bytes = buffer.array();
+      int i = 0;
+      while (i < data.length) {
+        int pos = buffer.position();
+        int count = Math.min((buffer.capacity() - pos) / 3, data.length - i);
+        for (int end = i + count; i < end; i++) {
+          int argb = data[i];
+          bytes[pos++] = (byte) (argb >> 16);
+          bytes[pos++] = (byte) (argb >> 8);
+          bytes[pos++] = (byte) argb;
+        }
+        buffer.position(pos);
+        if (buffer.capacity() - pos < 3 || i == data.length) {
+          buffer.flip();
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          buffer.clear();
+        }
+      }
+      if (buffer.position() > 0) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the given Raster to a plain (P3) PPM file, one row of pixels per line. Alpha is
+   * dropped, since PPM images have no alpha channel.
+   *
+   * @param raster the pixels to write.
+   * @param file the file to write to.
+   * @throws IOException if the file could not be written.
+   */
+  protected static void writePlain(Raster raster, File file) throws IOException {
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file), BUFFER_SIZE)) {
+      writer.write("P3\n");
+      writer.write(raster.getWidth() + " " + raster.getHeight() + "\n");
+      writer.write(MAX_CLAMP + "\n");
+
+      StringBuilder row = new StringBuilder();
+      for (int i = 0; i < raster.getHeight(); i++) {
+        row.setLength(0);
+        for (int j = 0; j < raster.getWidth(); j++) {
+          int argb = raster.get(i, j);
+          row.append(Raster.red(argb)).append(' ')
+                  .append(Raster.green(argb)).append(' ')
+                  .append(Raster.blue(argb)).append(' ');
+        }
+        row.append('\n');
+        writer.append(row);
+      }
+    }
+  }
+
+  /**
+   * Reads the next whitespace separated token of a PPM header, skipping comments that start
+   * with '#' and run to the end of the line. The single whitespace byte ending the token is
+   * consumed, so after the last header token the buffer is positioned at the pixel data.
+   *
+   * @param channel the channel the file is read from.
+   * @param buffer the buffer holding the bytes read so far.
+   * @return the next token.
+   * @throws IOException if the file ends before a token is found.
+   */
+  private static String nextHeaderToken(FileChannel channel, ByteBuffer buffer)
+          throws IOException {
+    int c = nextByte(channel, buffer);
+    while (c == '#' || Character.isWhitespace(c)) {
+      if (c == '#') {
+        while (c != '\n' && c != '\r') {
+          c = nextByte(channel, buffer);
+        }
+      }
+      c = nextByte(channel, buffer);
+    }
+    StringBuilder token = new StringBuilder();
+    while (!Character.isWhitespace(c)) {
+      token.append((char) c);
+      c = nextByte(channel, buffer);
+    }
+    return token.toString();
+  }
+
+  /**
+   * Parses a number from a PPM header.
+   *
+   * @param token the header token.
+   * @return the number the token holds.
+   * @throws IOException if the token is not a non-negative number.
+   */
+  private static int parseHeaderInt(String token) throws IOException {
+    try {
+      int value = Integer.parseInt(token);
+      if (value < 0) {
+        throw new IOException("Invalid PPM file: negative header value");
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid PPM file: expected a number but found " + token);
+    }
+  }
+
+  /**
+   * Returns the next byte of the file, reading more of the file into the buffer if needed.
+   *
+   * @param channel the channel the file is read from.
+   * @param buffer the buffer holding the bytes read so far.
+   * @return the next byte, from 0 to 255.
+   * @throws IOException if the file has ended.
+   */
+  private static int nextByte(FileChannel channel, ByteBuffer buffer) throws IOException {
+    if (!buffer.hasRemaining()) {
+      fill(channel, buffer, 1);
+    }
+    return buffer.get() & 0xFF;
+  }
+
+  /**
+   * Moves the unread bytes in the buffer to its start and reads from the channel until at
+   * least the given number of bytes are available.
+   *
+   * @param channel the channel the file is read from.
+   * @param buffer the buffer holding the bytes read so far.
+   * @param needed the number of bytes that must be available.
+   * @throws IOException if the file ends before enough bytes are read.
+   */
+  private static void fill(FileChannel channel, ByteBuffer buffer, int needed)
+          throws IOException {
+    buffer.compact();
+    while (buffer.position() < needed) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Invalid PPM file: file ended before all pixels were read");
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Reads a one or two byte big-endian sample starting at the given position.
+   */
+  private static int sample(byte[] bytes, int pos, int sampleBytes) {
+    if (sampleBytes == 1) {
+      return bytes[pos] & 0xFF;
+    }
+    return (bytes[pos] & 0xFF) << 8 | (bytes[pos + 1] & 0xFF);
+  }
+}
@@ -1,12 +1,15 @@
 package model;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
 /**
  * Represents a Project in a Collage Program consisting of multiple layers with images and filters.
@@ -16,9 +19,13 @@ import java.util.Scanner;
  */
 public class Project {
   protected LinkedHashMap<String, Layer> layers;
-  protected static int MAX_CLAMP = 255;
+  // the maximum value of a color component, which every project and image is written with
+  protected static final int MAX_CLAMP = 255;
   private final int canvasHeight;
   private final int canvasWidth;
+  private final Compositor compositor;
+  private final Map<Layer, MipPyramid> pyramids;
+  private final List<Compositor> levelCompositors;
   private String selectedLayer;
 
   /**
@@ -33,6 +40,9 @@ public class Project {
     this.canvasHeight = canvasHeight;
     this.canvasWidth = canvasWidth;
     this.layers = new LinkedHashMap<>();
+    this.compositor = new Compositor(canvasHeight, canvasWidth);
+    this.pyramids = new IdentityHashMap<>();
+    this.levelCompositors = new ArrayList<>();
     this.addLayer("bg");
   }
 
@@ -60,7 +70,8 @@ public class Project {
   /**
    * Adds an image from a specified file path to the layer of the specified name with an offset of
    * x and y from the top left corner of the canvas.
-   * The Image must be in ppm format.
+   * The Image must be in ppm format. Any part of the image that falls outside the canvas, whether
+   * the offsets are too large or negative, is left out.
    *
    * @param layerName the name of the layer where the image is to be added
    * @param file  the location of the image file
@@ -77,21 +88,10 @@ public class Project {
     }
 
     Layer layer = layers.get(layerName);
-    Image image = new Image(file);
-    image.readImage();
-
-    Pixel[][] layerPixels = layer.getPixels();
-    Pixel[][] imagePixels = image.getPixels();
-
-    for (int i = 0; i < imagePixels.length; i++) {
-      for (int j = 0; j < imagePixels[0].length; j++) {
-        if (i + x < layerPixels.length && j + y < layerPixels[0].length) {
-          layerPixels[i + x][j + y] = imagePixels[i][j];
-        }
-      }
-    }
-
-    layer.updatePixels(layerPixels);
+    // the cached raster is shared, so its pixels are only read
+    Raster imageRaster = ImageCache.getShared().read(file);
+    layer.getRaster().paste(imageRaster, x, y);
+    layer.markChanged(x, x + imageRaster.getHeight(), y, y + imageRaster.getWidth());
   }
 
   /**
@@ -113,207 +113,184 @@ public class Project {
   }
 
   /**
-   * Writes the current state of the project to a StringBuilder in a custom collage format.
+   * Adds a filter to the end of a given layer's stack of filters. Retrieves the specified layer
+   * by its name and attempts to add the specified filter. If the layer or the filter is invalid,
+   * an IllegalArgumentException is thrown.
+   *
+   * @param layerName    the name of the layer that the filter is being added to
+   * @param filterOption the name of the filter that is being added
+   * @throws IllegalArgumentException if the layer or filter is invalid
+   */
+  protected void appendFilter(String layerName, String filterOption)
+          throws IllegalArgumentException {
+    Layer layer = layers.get(layerName);
+    if (layer == null) {
+      throw new IllegalArgumentException("Layer not found!");
+    }
+    layer.appendFilter(filterOption);
+  }
+
+  /**
+   * Writes the current state of the project to the given Writer in a custom collage format.
    * The format includes metadata about the canvas size, layers, filter names, and pixel values.
    * This format is intended for saving the project to a file and loading it back later.
    * <p></p>
    * The format is structured as follows:
    * - First line: "C1"
    * - Second line: canvasWidth and canvasHeight, separated by a space
-   * - Third line: the maximum clamp value (MAX_CLAMP)
+   * - Third line: the maximum clamp value (MAX_CLAMP, always 255)
    * - For each layer:
    * - Layer name and filter name, separated by a space
    * - For each pixel in the layer:
    * - Pixel's red, green, blue, and alpha values, separated by spaces
    * - A newline character at the end of each row of pixels
+   * <p></p>
+   * The project is written one row of pixels at a time, so only a single row of text is held in
+   * memory. The Writer should be buffered, and is flushed but not closed.
    *
-   * @return a StringBuilder containing the project data in the custom collage format
+   * @param out the Writer the project data is written to
+   * @throws IOException if the data could not be written
    */
-  protected StringBuilder writeToCollageFormat() {
-    StringBuilder content = new StringBuilder();
+  protected void writeToCollageFormat(Writer out) throws IOException {
+    out.write("C1\n");
+    out.write(canvasWidth + " " + canvasHeight + "\n");
+    out.write(MAX_CLAMP + "\n");
 
-    content.append("C1\n");
-    content.append(canvasWidth).append(" ").append(canvasHeight).append("\n");
-    content.append(MAX_CLAMP).append("\n");
+    StringBuilder row = new StringBuilder();
     for (Map.Entry<String, Layer> entry : layers.entrySet()) {
       Layer layer = entry.getValue();
-      content.append(entry.getKey()).append(" ").append(layer.getFilterName()).append("\n");
-      Pixel[][] tempPixels = layer.getPixels();
-      for (int i = 0; i < tempPixels.length; i++) {
-        for (int j = 0; j < tempPixels[0].length; j++) {
-          Pixel pixel = tempPixels[i][j];
-          content.append(pixel.r).append(" ");
-          content.append(pixel.g).append(" ");
-          content.append(pixel.b).append(" ");
-          content.append(pixel.a).append(" ");
+      out.write(entry.getKey() + " " + layer.getFilterName() + "\n");
+      Raster raster = layer.getRaster();
+      for (int i = 0; i < raster.getHeight(); i++) {
+        row.setLength(0);
+        for (int j = 0; j < raster.getWidth(); j++) {
+          int argb = raster.get(i, j);
+          row.append(Raster.red(argb)).append(" ");
+          row.append(Raster.green(argb)).append(" ");
+          row.append(Raster.blue(argb)).append(" ");
+          row.append(Raster.alpha(argb)).append(" ");
         }
-        content.append("\n");
+        row.append("\n");
+        out.append(row);
       }
     }
-    return content;
+    out.flush();
   }
 
   /**
-   * Loads a project from a given Scanner containing project data in the custom collage format.
-   * The method reads the data from the Scanner, recreates the layers with their respective
+   * Loads a project from a given TextTokenizer reading project data in the custom collage format.
+   * The method reads the data from the tokenizer, recreates the layers with their respective
    * filter names, and populates the layers with pixel data. The project dimensions
    * (height and width) are provided as arguments and should match the dimensions specified in the
-   * input data.
+   * input data. Color values are scaled to the range 0 to 255 if the file uses a different
+   * maximum value, so the project is saved again with a maximum value of 255.
    *
-   * @param sc     a Scanner containing the project data in the custom collage format
+   * @param tokens a TextTokenizer positioned after the project header
    * @param height the height of the project canvas
    * @param width  the width of the project canvas
-   * @throws IllegalStateException    if the data in the Scanner does not follow the expected format
+   * @param maxValue the maximum value of a color in the input data
+   * @throws IOException              if the data does not follow the expected format
    * @throws IllegalArgumentException if the layer or filter is invalid
    */
-  protected void loadProject(Scanner sc, int height, int width) {
-    while (sc.hasNext()) {
-      String layerName = sc.next();
+  protected void loadProject(TextTokenizer tokens, int height, int width, int maxValue)
+          throws IOException {
+    if (maxValue < 1) {
+      throw new IOException("Maximum value must be at least 1");
+    }
+    while (tokens.hasNext()) {
+      String layerName = tokens.next();
       this.addLayer(layerName);
-      String filter = sc.next();
-      Pixel[][] temp = new Pixel[height][width];
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          temp[i][j] = new Pixel(255, 255, 255, 0);
-        }
-      }
-      while (sc.hasNextInt()) {
-        for (int i = 0; i < height; i++) {
-          for (int j = 0; j < width; j++) {
-            int r = sc.nextInt();
-            int g = sc.nextInt();
-            int b = sc.nextInt();
-            int a = sc.nextInt();
-            temp[i][j] = new Pixel(r, g, b, a);
-          }
+      String filter = tokens.next();
+      Raster temp = new Raster(height, width, Raster.pack(255, 255, 255, 0));
+      int[] data = temp.getData();
+      if (tokens.hasNextInt()) {
+        for (int i = 0; i < data.length; i++) {
+          int r = Raster.scale(tokens.nextInt(), maxValue);
+          int g = Raster.scale(tokens.nextInt(), maxValue);
+          int b = Raster.scale(tokens.nextInt(), maxValue);
+          int a = Raster.scale(tokens.nextInt(), maxValue);
+          data[i] = Raster.pack(r, g, b, a);
         }
       }
       Layer layer = layers.get(layerName);
-      layer.updatePixels(temp);
+      layer.updateRaster(temp);
       this.setFilter(layerName, filter);
     }
   }
 
   /**
-   * Combines all the layers in the current project into a single Pixel[][] array, which represents
-   * the final image. This method initializes the final image array with a transparent background
-   * (white color with 0 alpha value) and iterates through the layers, applying their pixel data
-   * on top of the final image. This method is called when exporting the final image.
+   * Combines all the layers in the current project into a single Raster, which represents
+   * the final image. The final image starts as a transparent background (white color with 0 alpha
+   * value), and each layer's filtered pixels are placed on top of it in order. This method is
+   * called when exporting or displaying the final image.
    * <p></p>
-   * Note that this method does not consider the filter applied to each layer. Make sure to apply
-   * the filters to the layers before calling this method if you want the final image to include
-   * the filtered appearance of the layers.
+   * Blending layers are blended against the composite of the layers beneath them.
+   * Rendering is incremental: the project's compositor keeps each layer's filtered pixels and
+   * the composite beneath each layer, so only layers that changed since the last call, and the
+   * layers above them, are processed again.
    *
-   * @return a Pixel[][] array representing the final image obtained by merging all layers.
+   * @return a Raster representing the final image obtained by merging all layers. The raster is
+   *         shared with the compositor's cache and must not be modified.
    */
-  protected Pixel[][] layersToImage() {
-    Pixel[][] finalImage = new Pixel[canvasHeight][canvasWidth];
-    for (int i = 0; i < canvasHeight; i++) {
-      for (int j = 0; j < canvasWidth; j++) {
-        finalImage[i][j] = new Pixel(255, 255, 255, 0);
-      }
-    }
-
-    for (Map.Entry<String, Layer> entry : layers.entrySet()) {
-      Layer currentLayer = entry.getValue();
-      Layer filteredLayer = new Layer(currentLayer.getName(), canvasHeight, canvasWidth);
-      filteredLayer.updatePixels(deepCopyPixels(currentLayer.getPixels()));
-      filteredLayer.setFilter(currentLayer.getFilterName());
-
-      if (currentLayer.getFilterName().contains("blend")) {
-        filteredLayer.addFilter(filteredLayer.getFilterName(), this.getCompositeImage());
-      }
-      else {
-        filteredLayer.addFilter(filteredLayer.getFilterName());
-      }
-
-      Pixel[][] layerPixels = filteredLayer.getPixels();
-
-      for (int i = 0; i < canvasHeight; i++) {
-        for (int j = 0; j < canvasWidth; j++) {
-          Pixel layerPixel = layerPixels[i][j];
-          Pixel finalPixel = finalImage[i][j];
-
-          if (layerPixel.a == 0) {
-            continue;
-          }
+  protected Raster layersToImage() {
+    return layersToImage(0);
+  }
 
-          if (finalPixel == null) {
-            finalImage[i][j] = layerPixel;
-          } else {
-            double alpha = layerPixel.a / 255.0;
-            int r = (int) (finalPixel.r * (1 - alpha) + layerPixel.r * alpha);
-            int g = (int) (finalPixel.g * (1 - alpha) + layerPixel.g * alpha);
-            int b = (int) (finalPixel.b * (1 - alpha) + layerPixel.b * alpha);
-            int finalAlpha = Math.max(finalPixel.a, layerPixel.a);
-            finalImage[i][j] = new Pixel(r, g, b, finalAlpha);
-          }
-        }
-      }
-    }
-    return finalImage;
+  /**
+   * Combines smaller copies of the layers into a preview of the final image at the given level,
+   * where each level is half the height and width of the one before. The copies of each layer
+   * are kept in a MipPyramid and the preview at each level has its own compositor, so like
+   * layersToImage() only the tiles that changed since the last preview at that level are
+   * shrunk and composited again.
+   *
+   * @param level the level, where 0 is the full size image.
+   * @return a Raster of the preview. The raster is shared with the compositor's cache and must
+   *         not be modified.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  protected Raster layersToImage(int level) throws IllegalArgumentException {
+    return getCompositor(level).render(getLayers(level));
   }
 
   /**
-   * Get values of composite image underneath current layer.
+   * Returns the compositor that renders the final image at the given level, creating it the
+   * first time a level is rendered.
+   *
+   * @param level the level, where 0 is the full size image.
+   * @return the compositor for that level.
+   * @throws IllegalArgumentException if the level is negative.
    */
-  private Pixel[][] getCompositeImage() {
-    Pixel[][] compositeImage = new Pixel[canvasHeight][canvasWidth];
-    for (int i = 0; i < canvasHeight; i++) {
-      for (int j = 0; j < canvasWidth; j++) {
-        compositeImage[i][j] = new Pixel(255, 255, 255, 0);
-      }
+  private Compositor getCompositor(int level) throws IllegalArgumentException {
+    if (level < 0) {
+      throw new IllegalArgumentException("Level cannot be negative!");
     }
-    for (Map.Entry<String, Layer> entry : layers.entrySet()) {
-      if (entry.getValue() != this.layers.get(this.selectedLayer)) { // Skip current layer
-        Layer temp = entry.getValue();
-        Layer filteredLayer = new Layer(temp.getName(), canvasHeight, canvasWidth);
-        filteredLayer.updatePixels(deepCopyPixels(temp.getPixels()));
-        filteredLayer.setFilter(temp.getFilterName());
-        filteredLayer.addFilter(filteredLayer.getFilterName());
-        Pixel[][] layerPixels = filteredLayer.getPixels();
-        for (int i = 0; i < canvasHeight; i++) {
-          for (int j = 0; j < canvasWidth; j++) {
-            Pixel layerPixel = layerPixels[i][j];
-            Pixel finalPixel = compositeImage[i][j];
-            if (layerPixel.a == 0) {
-              continue;
-            }
-            if (finalPixel.a == 0) {
-              compositeImage[i][j] = layerPixel;
-            } else {
-              double alpha = layerPixel.a / 255.0;
-              int r = (int) (finalPixel.r * (1 - alpha) + layerPixel.r * alpha);
-              int g = (int) (finalPixel.g * (1 - alpha) + layerPixel.g * alpha);
-              int b = (int) (finalPixel.b * (1 - alpha) + layerPixel.b * alpha);
-              compositeImage[i][j] = new Pixel(r, g, b);
-            }
-          }
-        }
-      }
+    if (level == 0) {
+      return compositor;
+    }
+    while (levelCompositors.size() < level) {
+      int next = levelCompositors.size() + 1;
+      levelCompositors.add(new Compositor(getCanvasHeight(next), getCanvasWidth(next)));
     }
-    return compositeImage;
+    return levelCompositors.get(level - 1);
   }
 
   /**
-   * Creates a deep copy of a Pixel[][] to apply operations without affecting the original.
-   * @param originalPixels represents original array of image.
-   * @return a copy of the pixel array.
+   * Returns the project's layers, from bottom to top, at the given level, bringing their
+   * smaller copies up to date. Copies of layers no longer in the project are dropped.
+   *
+   * @param level the level, where 0 is the full size image.
+   * @return the layers at that level.
    */
-  private Pixel[][] deepCopyPixels(Pixel[][] originalPixels) {
-    int height = originalPixels.length;
-    int width = originalPixels[0].length;
-    Pixel[][] copiedPixels = new Pixel[height][width];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        Pixel originalPixel = originalPixels[i][j];
-        copiedPixels[i][j] = new Pixel(originalPixel.r, originalPixel.g, originalPixel.b,
-                originalPixel.a);
-      }
+  private List<Layer> getLayers(int level) {
+    if (level == 0) {
+      return new ArrayList<>(layers.values());
     }
-
-    return copiedPixels;
+    pyramids.keySet().retainAll(layers.values());
+    List<Layer> levelLayers = new ArrayList<>();
+    for (Layer layer : layers.values()) {
+      levelLayers.add(pyramids.computeIfAbsent(layer, MipPyramid::new).getLevel(level));
+    }
+    return levelLayers;
   }
 
   /**
@@ -334,6 +311,30 @@ public class Project {
     return this.canvasWidth;
   }
 
+  /**
+   * Returns the height of the final image at the given level, which is halved and rounded up
+   * once per level.
+   *
+   * @param level the level, where 0 is the full size image.
+   * @return the height at that level.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  protected int getCanvasHeight(int level) throws IllegalArgumentException {
+    return MipPyramid.levelSize(canvasHeight, level);
+  }
+
+  /**
+   * Returns the width of the final image at the given level, which is halved and rounded up
+   * once per level.
+   *
+   * @param level the level, where 0 is the full size image.
+   * @return the width at that level.
+   * @throws IllegalArgumentException if the level is negative.
+   */
+  protected int getCanvasWidth(int level) throws IllegalArgumentException {
+    return MipPyramid.levelSize(canvasWidth, level);
+  }
+
   /**
    * Changes the selected layer.
    * @param layer represents the new layer that is going to be selected.
@@ -364,18 +365,69 @@ public class Project {
       return null;
     }
 
-    Pixel[][] finalPixels = layersToImage();
-    BufferedImage collageImage = new BufferedImage(canvasWidth, canvasHeight,
-            BufferedImage.TYPE_INT_ARGB);
+    return BufferedImageCodec.write(layersToImage(), true);
+  }
 
-    for (int i = 0; i < canvasHeight; i++) {
-      for (int j = 0; j < canvasWidth; j++) {
-        Pixel pixel = finalPixels[i][j];
-        int argb = (pixel.a << 24) | (pixel.r << 16) | (pixel.g << 8) | pixel.b;
-        collageImage.setRGB(j, i, argb);
-      }
+  /**
+   * Renders this project and copies the areas of the collage that changed since the last call
+   * into the given image, which was built by {@link #getCollageImage()} or is a blank
+   * TYPE_INT_ARGB image the size of the canvas. Every area is copied the first time this is
+   * called on a project.
+   *
+   * @param image the TYPE_INT_ARGB image of the collage to update.
+   * @return the areas that were copied, with x as the column and y as the row.
+   * @throws IllegalArgumentException if the image is null or not a TYPE_INT_ARGB image the size
+   *                                  of the canvas.
+   */
+  protected List<Rectangle> updateCollageImage(BufferedImage image)
+          throws IllegalArgumentException {
+    return updateCollageImage(image, new Rectangle(0, 0, canvasWidth, canvasHeight));
+  }
+
+  /**
+   * Renders only the tiles of this project that overlap an area of the canvas, and copies the
+   * areas that changed into the given image like {@link #updateCollageImage(BufferedImage)}.
+   * Changes outside the area are rendered and copied by a later call that covers them.
+   *
+   * @param image the TYPE_INT_ARGB image of the collage to update.
+   * @param area the area of the canvas to render, with x as the column and y as the row.
+   * @return the areas that were copied, with x as the column and y as the row.
+   * @throws IllegalArgumentException if the image is null or not a TYPE_INT_ARGB image the size
+   *                                  of the canvas.
+   */
+  protected List<Rectangle> updateCollageImage(BufferedImage image, Rectangle area)
+          throws IllegalArgumentException {
+    return updateCollageImage(image, area, 0);
+  }
+
+  /**
+   * Renders only the tiles of the preview at the given level that overlap an area of it, and
+   * copies the areas that changed into the given image like
+   * {@link #updateCollageImage(BufferedImage, Rectangle)}. Each level keeps track of the areas
+   * it has copied separately, so a view can keep an image for every level it shows.
+   *
+   * @param image the TYPE_INT_ARGB image of the preview to update.
+   * @param area the area of the preview to render, with x as the column and y as the row.
+   * @param level the level, where 0 is the full size image.
+   * @return the areas that were copied, with x as the column and y as the row.
+   * @throws IllegalArgumentException if the level is negative, or the image is null or not a
+   *                                  TYPE_INT_ARGB image the size of the preview.
+   */
+  protected List<Rectangle> updateCollageImage(BufferedImage image, Rectangle area, int level)
+          throws IllegalArgumentException {
+    if (image == null || image.getType() != BufferedImage.TYPE_INT_ARGB
+            || image.getWidth() != getCanvasWidth(level)
+            || image.getHeight() != getCanvasHeight(level)) {
+      throw new IllegalArgumentException("Image is not the size of the canvas!");
+    }
+    Compositor levelCompositor = getCompositor(level);
+    Raster composite = levelCompositor.render(getLayers(level), area.y, area.y + area.height,
+            area.x, area.x + area.width);
+    List<Rectangle> changed = levelCompositor.takeChangedAreas();
+    for (Rectangle changedArea : changed) {
+      BufferedImageCodec.copy(composite, image, changedArea);
     }
-    return collageImage;
+    return changed;
   }
 
   /**
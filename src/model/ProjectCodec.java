@@ -0,0 +1,455 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static model.Project.MAX_CLAMP;
+
+/**
+ * Reads and writes projects in the binary collage format, which stores the same information as
+ * the C1 text format in a fraction of the space. All numbers are big-endian.
+ * <p></p>
+ * The format is structured as follows:
+ * - The magic bytes "CLGB", followed by the format version (an int, currently 1)
+ * - The canvas width, canvas height, and maximum clamp value (ints). Files are always written
+ * with a maximum value of 255, and the pixels of files with another maximum value are scaled to
+ * the range 0 to 255 when they are read
+ * - The number of layers (an int), followed by a table with one entry per layer, bottom layer
+ * first. Each entry holds the layer name and filter name (modified UTF-8 strings, as written by
+ * DataOutputStream.writeUTF), the offset and length in bytes of the layer's pixel block (longs),
+ * and a flags byte. Flag 1 marks a layer that still has the pixels it was created with
+ * - The pixel block of every layer, in the same order. A pixel block is the layer's rows of packed
+ * ARGB ints compressed with Deflate
+ * <p></p>
+ * Layers are compressed one row at a time straight into the file, and the table is filled in once
+ * every block has been written, so saving never holds more than a row of uncompressed pixels
+ * beyond the project itself.
+ * <p></p>
+ * Loading reads the header and table, and copies each layer's compressed block onto the heap so
+ * that the file is closed once loading is done and can be saved over. A block is only
+ * decompressed when the layer is first rendered or edited. Layers flagged as untouched are not
+ * read at all and keep their default pixels.
+ */
+public class ProjectCodec {
+  private static final byte[] MAGIC = "CLGB".getBytes(StandardCharsets.US_ASCII);
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int DEFAULT_PIXELS = 1;
+
+  /**
+   * Represents a layer table entry in a binary project file.
+   */
+  private static class Entry {
+    private final String name;
+    private final String filter;
+    private long offset;
+    private long length;
+    private int flags;
+
+    /**
+     * Constructor to create a table entry for a layer.
+     *
+     * @param name the name of the layer.
+     * @param filter the name of the layer's filter.
+     */
+    private Entry(String name, String filter) {
+      this.name = name;
+      this.filter = filter;
+    }
+  }
+
+  /**
+   * Returns whether the given file is a binary project file, by checking its magic bytes.
+   *
+   * @param file the project file.
+   * @return true if the file starts with the binary format's magic bytes.
+   * @throws IOException if the file could not be read.
+   */
+  protected static boolean isBinary(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) {
+        // keep reading until the magic bytes are in or the file ends
+      }
+      return !magic.hasRemaining() && ByteBuffer.wrap(MAGIC).equals(magic.flip());
+    }
+  }
+
+  /**
+   * Writes the given project to a binary project file.
+   *
+   * @param project the project to write.
+   * @param file the file to write to.
+   * @throws IOException if the file could not be written.
+   */
+  protected static void writeBinary(Project project, File file) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    for (Map.Entry<String, Layer> layer : project.layers.entrySet()) {
+      Entry entry = new Entry(layer.getKey(), layer.getValue().getFilterName());
+      if (layer.getValue().hasDefaultPixels()) {
+        entry.flags = DEFAULT_PIXELS;
+      }
+      entries.add(entry);
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      // the table is written once with empty offsets to reserve its space, then filled in
+      ByteBuffer header = header(project, entries);
+      long tableEnd = header.remaining();
+      channel.write(header);
+
+      OutputStream out = Channels.newOutputStream(channel);
+      int k = 0;
+      for (Layer layer : project.layers.values()) {
+        Entry entry = entries.get(k++);
+        entry.offset = channel.position();
+        writeBlock(layer, project.getCanvasHeight(), project.getCanvasWidth(), out);
+        entry.length = channel.position() - entry.offset;
+      }
+
+      header = header(project, entries);
+      if (header.remaining() != tableEnd) {
+        throw new IOException("Project table changed size while saving");
+      }
+      long position = 0;
+      while (header.hasRemaining()) {
+        position += channel.write(header, position);
+      }
+    }
+  }
+
+  /**
+   * Reads a binary project file into a new project. Each layer's pixels are kept compressed and
+   * are only decompressed when the layer is first needed, and the file is not read again after
+   * this returns, so it may be overwritten while the project is open.
+   *
+   * @param file the project file to read.
+   * @return the project the file holds.
+   * @throws IOException if the file could not be read or ends early.
+   * @throws IllegalArgumentException if the file is not a binary project file of a supported
+   *                                  version, or holds invalid layers or filters.
+   */
+  protected static Project readBinary(File file) throws IOException, IllegalArgumentException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      DataInputStream in = new DataInputStream(new BufferedChannelStream(channel));
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!ByteBuffer.wrap(MAGIC).equals(ByteBuffer.wrap(magic))) {
+        throw new IllegalArgumentException("Not a binary project file");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported project file version: " + version);
+      }
+      int width = in.readInt();
+      int height = in.readInt();
+      int maxValue = in.readInt();
+      int layerCount = in.readInt();
+      if (width < 0 || height < 0 || layerCount < 0 || maxValue < 1) {
+        throw new IllegalArgumentException("Not a valid project file");
+      }
+
+      List<Entry> entries = new ArrayList<>();
+      for (int k = 0; k < layerCount; k++) {
+        Entry entry = new Entry(in.readUTF(), in.readUTF());
+        entry.offset = in.readLong();
+        entry.length = in.readLong();
+        entry.flags = in.readByte();
+        if (entry.offset < 0 || entry.length < 0
+                || entry.offset + entry.length > channel.size()) {
+          throw new EOFException("Layer " + entry.name + " ends past the end of the file");
+        }
+        entries.add(entry);
+      }
+
+      Project project = new Project(height, width);
+      for (Entry entry : entries) {
+        project.addLayer(entry.name);
+        Layer layer = project.layers.get(entry.name);
+        if ((entry.flags & DEFAULT_PIXELS) == 0) {
+          layer.deferRaster(loader(channel, entry, height, width, maxValue));
+        }
+        project.setFilter(entry.name, entry.filter);
+      }
+      return project;
+    }
+  }
+
+  /**
+   * Builds the header and layer table of a binary project file.
+   *
+   * @param project the project being written.
+   * @param entries the table entries of the project's layers.
+   * @return a buffer holding the header and table, ready to be written.
+   * @throws IOException if a layer name or filter name is too long to store.
+   */
+  private static ByteBuffer header(Project project, List<Entry> entries) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.write(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(project.getCanvasWidth());
+    out.writeInt(project.getCanvasHeight());
+    out.writeInt(MAX_CLAMP);
+    out.writeInt(entries.size());
+    for (Entry entry : entries) {
+      out.writeUTF(entry.name);
+      out.writeUTF(entry.filter);
+      out.writeLong(entry.offset);
+      out.writeLong(entry.length);
+      out.writeByte(entry.flags);
+    }
+    out.flush();
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  /**
+   * Compresses the rows of a layer's pixels into the given stream as a single Deflate block. A
+   * layer that still has its default pixels is written without creating its raster.
+   *
+   * @param layer the layer to write.
+   * @param height the height of the canvas.
+   * @param width the width of the canvas.
+   * @param out the stream to write the block to. The stream is not closed.
+   * @throws IOException if the block could not be written.
+   */
+  private static void writeBlock(Layer layer, int height, int width, OutputStream out)
+          throws IOException {
+    int[] data;
+    int rowStep = width;
+    if (layer.hasDefaultPixels()) {
+      // every row is the same, so a single row stands in for the whole layer
+      data = new int[width];
+      Arrays.fill(data, layer.getDefaultPixel());
+      rowStep = 0;
+    } else {
+      data = layer.getRaster().getData();
+    }
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      DeflaterOutputStream block = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+      ByteBuffer row = ByteBuffer.allocate(width * 4);
+      for (int i = 0; i < height; i++) {
+        row.clear();
+        row.asIntBuffer().put(data, i * rowStep, width);
+        block.write(row.array());
+      }
+      block.finish();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Creates a loader that decompresses a layer's pixel block when the layer is first needed. The
+   * compressed block is copied onto the heap now, so the loader does not keep the file open or
+   * mapped. A block too large for an array is decompressed now instead.
+   *
+   * @param channel the channel the project file is read from.
+   * @param entry the table entry of the layer.
+   * @param height the height of the canvas.
+   * @param width the width of the canvas.
+   * @param maxValue the maximum value of a color in the file.
+   * @return a loader for the layer's pixels.
+   * @throws IOException if the block could not be read.
+   */
+  private static Layer.RasterLoader loader(FileChannel channel, Entry entry, int height,
+                                           int width, int maxValue) throws IOException {
+    if (entry.length > Integer.MAX_VALUE) {
+      Raster raster = new Raster(height, width, 0);
+      readBlock(channel, entry, raster);
+      raster.scaleComponents(maxValue);
+      return () -> raster;
+    }
+    ByteBuffer block = ByteBuffer.allocate((int) entry.length);
+    while (block.hasRemaining()) {
+      if (channel.read(block, entry.offset + block.position()) < 0) {
+        throw new EOFException("Layer " + entry.name + " ends past the end of the file");
+      }
+    }
+    block.flip();
+    return () -> {
+      Raster raster = new Raster(height, width, 0);
+      inflate(block.duplicate(), entry, raster);
+      raster.scaleComponents(maxValue);
+      return raster;
+    };
+  }
+
+  /**
+   * Decompresses a layer's pixel block held in memory into the given raster.
+   *
+   * @param block the compressed block.
+   * @param entry the table entry of the layer.
+   * @param raster the raster to fill, sized to the canvas.
+   * @throws IOException if the block is corrupt or holds too few pixels.
+   */
+  private static void inflate(ByteBuffer block, Entry entry, Raster raster)
+          throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(block);
+      ByteBuffer row = ByteBuffer.allocate(raster.getWidth() * 4);
+      int[] data = raster.getData();
+      for (int i = 0; i < raster.getHeight(); i++) {
+        row.clear();
+        while (row.hasRemaining()) {
+          if (inflater.inflate(row) == 0 && (inflater.finished() || inflater.needsInput())) {
+            throw new EOFException("Layer " + entry.name
+                    + " ended before all pixels were read");
+          }
+        }
+        row.flip();
+        row.asIntBuffer().get(data, i * raster.getWidth(), raster.getWidth());
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Layer " + entry.name + " is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Decompresses a layer's pixel block into the given raster.
+   *
+   * @param channel the channel the project file is read from.
+   * @param entry the table entry of the layer.
+   * @param raster the raster to fill, sized to the canvas.
+   * @throws IOException if the block could not be read or holds too few pixels.
+   */
+  private static void readBlock(FileChannel channel, Entry entry, Raster raster)
+          throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      channel.position(entry.offset);
+      InputStream block = new InflaterInputStream(
+              new BoundedChannelStream(channel, entry.length), inflater, BUFFER_SIZE);
+      DataInputStream in = new DataInputStream(block);
+      ByteBuffer row = ByteBuffer.allocate(raster.getWidth() * 4);
+      int[] data = raster.getData();
+      for (int i = 0; i < raster.getHeight(); i++) {
+        in.readFully(row.array());
+        row.clear();
+        row.asIntBuffer().get(data, i * raster.getWidth(), raster.getWidth());
+      }
+    } catch (EOFException e) {
+      throw new EOFException("Layer " + entry.name + " ended before all pixels were read");
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Reads a channel from its current position through a fixed-size buffer.
+   */
+  private static class BufferedChannelStream extends InputStream {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor to create a stream over the given channel.
+     *
+     * @param channel the channel to read.
+     */
+    private BufferedChannelStream(FileChannel channel) {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      this.buffer.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    /**
+     * Reads more of the channel into the buffer if it is empty.
+     *
+     * @return true if the buffer has bytes, or false if the channel has ended.
+     */
+    private boolean fill() throws IOException {
+      if (buffer.hasRemaining()) {
+        return true;
+      }
+      buffer.clear();
+      int read = channel.read(buffer);
+      buffer.flip();
+      return read > 0;
+    }
+  }
+
+  /**
+   * Reads at most a given number of bytes from a channel, starting at its current position.
+   */
+  private static class BoundedChannelStream extends InputStream {
+    private final FileChannel channel;
+    private long remaining;
+
+    /**
+     * Constructor to create a stream over the next bytes of the given channel.
+     *
+     * @param channel the channel to read.
+     * @param length the number of bytes the stream may read.
+     */
+    private BoundedChannelStream(FileChannel channel, long length) {
+      this.channel = channel;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+      if (count > 0) {
+        remaining -= count;
+      }
+      return count;
+    }
+  }
+}
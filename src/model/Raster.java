@@ -0,0 +1,288 @@
+package model;
+
+import java.util.Arrays;
+
+import static model.Project.MAX_CLAMP;
+
+/**
+ * Represents a rectangular grid of pixels stored as packed ARGB integers in a single row-major
+ * array. Each pixel takes up one int, with the alpha component in the highest byte followed by
+ * the red, green, and blue components, which is the same layout used by
+ * BufferedImage.TYPE_INT_ARGB.
+ */
+public class Raster {
+  private final int height;
+  private final int width;
+  private final int[] data;
+
+  /**
+   * Constructor to create a Raster of a given height and width where every pixel is
+   * set to the given packed ARGB value.
+   *
+   * @param height the height of the raster.
+   * @param width the width of the raster.
+   * @param argb the packed ARGB value every pixel starts with.
+   */
+  protected Raster(int height, int width, int argb) {
+    this(height, width, new int[height * width]);
+    fill(argb);
+  }
+
+  /**
+   * Constructor to create a Raster of a given height and width backed by the given array of
+   * packed ARGB values. The array is used directly and is not copied.
+   *
+   * @param height the height of the raster.
+   * @param width the width of the raster.
+   * @param data the row-major array of packed ARGB values.
+   * @throws IllegalArgumentException if the array length does not match the dimensions.
+   */
+  protected Raster(int height, int width, int[] data) throws IllegalArgumentException {
+    if (height < 0 || width < 0 || data.length != height * width) {
+      throw new IllegalArgumentException("Raster dimensions do not match its data!");
+    }
+    this.height = height;
+    this.width = width;
+    this.data = data;
+  }
+
+  /**
+   * Returns the height of this raster.
+   *
+   * @return the height of this raster.
+   */
+  protected int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the width of this raster.
+   *
+   * @return the width of this raster.
+   */
+  protected int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the row-major array of packed ARGB values backing this raster. Changes to the array
+   * are changes to the raster.
+   *
+   * @return the array backing this raster.
+   */
+  protected int[] getData() {
+    return data;
+  }
+
+  /**
+   * Returns the packed ARGB value of the pixel at the given row and column.
+   *
+   * @param row the row of the pixel.
+   * @param col the column of the pixel.
+   * @return the packed ARGB value of the pixel.
+   */
+  protected int get(int row, int col) {
+    return data[row * width + col];
+  }
+
+  /**
+   * Sets the pixel at the given row and column to the given packed ARGB value.
+   *
+   * @param row the row of the pixel.
+   * @param col the column of the pixel.
+   * @param argb the new packed ARGB value of the pixel.
+   */
+  protected void set(int row, int col, int argb) {
+    data[row * width + col] = argb;
+  }
+
+  /**
+   * Sets every pixel in this raster to the given packed ARGB value.
+   *
+   * @param argb the packed ARGB value.
+   */
+  protected void fill(int argb) {
+    Arrays.fill(data, argb);
+  }
+
+  /**
+   * Copies the given raster into this one with its top-left corner at the given row and column,
+   * which may be negative. Only the part of the source that overlaps this raster is copied, one
+   * bulk copy per row.
+   *
+   * @param source the raster to copy from, which must not be this raster.
+   * @param row the row of this raster the source's first row is copied to.
+   * @param col the column of this raster the source's first column is copied to.
+   */
+  protected void paste(Raster source, int row, int col) {
+    int fromRow = Math.max(row, 0);
+    int toRow = (int) Math.min((long) row + source.height, height);
+    int fromCol = Math.max(col, 0);
+    int toCol = (int) Math.min((long) col + source.width, width);
+    int length = toCol - fromCol;
+    if (fromRow >= toRow || length <= 0) {
+      return;
+    }
+    for (int r = fromRow; r < toRow; r++) {
+      System.arraycopy(source.data, (r - row) * source.width + (fromCol - col),
+              data, r * width + fromCol, length);
+    }
+  }
+
+  /**
+   * Creates a copy of this raster that does not share its backing array.
+   *
+   * @return a copy of this raster.
+   */
+  protected Raster copy() {
+    return new Raster(height, width, data.clone());
+  }
+
+  /**
+   * Returns the pixel at the given row and column as a Pixel object. The Pixel is a copy, so
+   * changing it does not change the raster.
+   *
+   * @param row the row of the pixel.
+   * @param col the column of the pixel.
+   * @return a Pixel holding the components of the pixel.
+   */
+  protected Pixel getPixel(int row, int col) {
+    int argb = get(row, col);
+    return new Pixel(red(argb), green(argb), blue(argb), alpha(argb));
+  }
+
+  /**
+   * Returns a copy of this raster as a 2D array of Pixels, for code that still works with
+   * individual Pixel objects.
+   *
+   * @return a 2D array of Pixels with the same contents as this raster.
+   */
+  protected Pixel[][] toPixels() {
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        pixels[i][j] = getPixel(i, j);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Creates a raster with the same contents as the given 2D array of Pixels.
+   *
+   * @param pixels the 2D array of Pixels.
+   * @return a raster holding the pixels' packed ARGB values.
+   */
+  protected static Raster fromPixels(Pixel[][] pixels) {
+    int height = pixels.length;
+    int width = height == 0 ? 0 : pixels[0].length;
+    Raster raster = new Raster(height, width, new int[height * width]);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        Pixel p = pixels[i][j];
+        raster.set(i, j, pack(p.r, p.g, p.b, p.a));
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Packs the given components into a single ARGB int. Each component is clamped to the range
+   * of 0 to 255 first, the same way a Pixel clamps its components.
+   *
+   * @param r the red component.
+   * @param g the green component.
+   * @param b the blue component.
+   * @param a the alpha component.
+   * @return the packed ARGB value.
+   */
+  protected static int pack(int r, int g, int b, int a) {
+    return (clamp(a) << 24) | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+  }
+
+  /**
+   * Returns the red component of a packed ARGB value.
+   *
+   * @param argb the packed ARGB value.
+   * @return the red component.
+   */
+  protected static int red(int argb) {
+    return (argb >> 16) & 0xFF;
+  }
+
+  /**
+   * Returns the green component of a packed ARGB value.
+   *
+   * @param argb the packed ARGB value.
+   * @return the green component.
+   */
+  protected static int green(int argb) {
+    return (argb >> 8) & 0xFF;
+  }
+
+  /**
+   * Returns the blue component of a packed ARGB value.
+   *
+   * @param argb the packed ARGB value.
+   * @return the blue component.
+   */
+  protected static int blue(int argb) {
+    return argb & 0xFF;
+  }
+
+  /**
+   * Returns the alpha component of a packed ARGB value.
+   *
+   * @param argb the packed ARGB value.
+   * @return the alpha component.
+   */
+  protected static int alpha(int argb) {
+    return argb >>> 24;
+  }
+
+  /**
+   * Scales a color component from the range 0 to maxValue to the range 0 to 255, rounding to
+   * nearest, so that files written with a different maximum value are read the same way as
+   * files with a maximum value of 255.
+   *
+   * @param value the component, from 0 to maxValue.
+   * @param maxValue the maximum value of a component in the file, at least 1.
+   * @return the component from 0 to 255.
+   */
+  protected static int scale(int value, int maxValue) {
+    if (maxValue == MAX_CLAMP) {
+      return value;
+    }
+    return (int) (((long) value * MAX_CLAMP + maxValue / 2) / maxValue);
+  }
+
+  /**
+   * Scales every component of every pixel from the range 0 to maxValue to the range 0 to 255.
+   *
+   * @param maxValue the maximum value of a component the pixels were read with, at least 1.
+   */
+  protected void scaleComponents(int maxValue) {
+    if (maxValue == MAX_CLAMP) {
+      return;
+    }
+    for (int i = 0; i < data.length; i++) {
+      int argb = data[i];
+      data[i] = pack(scale(red(argb), maxValue), scale(green(argb), maxValue),
+              scale(blue(argb), maxValue), scale(alpha(argb), maxValue));
+    }
+  }
+
+  /**
+   * Ensures component is within 0 and 255.
+   * @param val component that is being checked.
+   * @return new component that fits parameters.
+   */
+  private static int clamp(int val) {
+    if (val > MAX_CLAMP) {
+      return MAX_CLAMP;
+    } else if (val < 0) {
+      return 0;
+    }
+    return val;
+  }
+}
@@ -0,0 +1,146 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs per-pixel rendering work over a canvas by splitting its rows into bands and processing the
+ * bands in parallel on a ForkJoinPool. Every pixel of a layer is filtered and composited
+ * independently of the others, so bands of rows never share any output.
+ * <p></p>
+ * The number of threads used is the parallelism of the pool. A parallelism of 1, or a canvas too
+ * small to be worth splitting, is processed sequentially on the calling thread. The shared pool's
+ * parallelism defaults to the number of available processors and can be set with the
+ * "collage.parallelism" system property or with {@link #setSharedParallelism(int)}.
+ */
+public class RenderPool {
+  private static final String PARALLELISM_PROPERTY = "collage.parallelism";
+  private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+  private static final int BANDS_PER_THREAD = 4;
+  private static RenderPool shared;
+
+  private final int parallelism;
+  private final ForkJoinPool pool;
+
+  /**
+   * Represents work done on a band of rows, from fromRow inclusive to toRow exclusive.
+   */
+  public interface BandTask {
+
+    /**
+     * Processes the rows in the given band.
+     *
+     * @param fromRow the first row of the band.
+     * @param toRow the row after the last row of the band.
+     */
+    void run(int fromRow, int toRow);
+  }
+
+  /**
+   * Constructor to create a RenderPool with a given parallelism.
+   *
+   * @param parallelism the number of threads rendering work may use.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  protected RenderPool(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1!");
+    }
+    this.parallelism = parallelism;
+    this.pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Returns the pool shared by every project in the program, creating it on first use.
+   *
+   * @return the shared render pool.
+   */
+  protected static synchronized RenderPool getShared() {
+    if (shared == null) {
+      int parallelism = Integer.getInteger(PARALLELISM_PROPERTY,
+              Runtime.getRuntime().availableProcessors());
+      shared = new RenderPool(Math.max(1, parallelism));
+    }
+    return shared;
+  }
+
+  /**
+   * Replaces the shared pool with one of the given parallelism. A parallelism of 1 makes all
+   * rendering sequential. Work already running on the old pool finishes there, and the old
+   * pool's threads exit once they are idle.
+   *
+   * @param parallelism the number of threads rendering work may use.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  protected static synchronized void setSharedParallelism(int parallelism)
+          throws IllegalArgumentException {
+    shared = new RenderPool(parallelism);
+  }
+
+  /**
+   * Returns the number of threads rendering work may use.
+   *
+   * @return the parallelism of this pool.
+   */
+  protected int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs the given task over every row from 0 to rows, split into bands. Bands are run in
+   * parallel unless this pool is sequential or the area is small, in which case the task runs
+   * once over all rows on the calling thread. Returns once every band has finished.
+   *
+   * @param rows the number of rows to process.
+   * @param rowLength the number of pixels in each row.
+   * @param task the work to run on each band.
+   */
+  protected void forEachBand(int rows, int rowLength, BandTask task) {
+    if (rows <= 0) {
+      return;
+    }
+    if (pool == null || rows == 1 || (long) rows * rowLength < SEQUENTIAL_THRESHOLD) {
+      task.run(0, rows);
+      return;
+    }
+    int bandRows = Math.max(1, rows / (parallelism * BANDS_PER_THREAD));
+    pool.invoke(new BandAction(0, rows, bandRows, task));
+  }
+
+  /**
+   * Splits a range of rows in half until it is no larger than a single band, then runs the
+   * task on it.
+   */
+  private static class BandAction extends RecursiveAction {
+    private final int fromRow;
+    private final int toRow;
+    private final int bandRows;
+    private final BandTask task;
+
+    /**
+     * Constructor to create a BandAction over a range of rows.
+     *
+     * @param fromRow the first row of the range.
+     * @param toRow the row after the last row of the range.
+     * @param bandRows the largest number of rows run as a single band.
+     * @param task the work to run on each band.
+     */
+    private BandAction(int fromRow, int toRow, int bandRows, BandTask task) {
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.bandRows = bandRows;
+      this.task = task;
+    }
+
+    @Override
+    protected void compute() {
+      if (toRow - fromRow <= bandRows) {
+        task.run(fromRow, toRow);
+      } else {
+        int mid = (fromRow + toRow) >>> 1;
+        invokeAll(new BandAction(fromRow, mid, bandRows, task),
+                new BandAction(mid, toRow, bandRows, task));
+      }
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a text file, such as a plain PPM image or a C1 project file, into whitespace separated
+ * tokens. The file is read through a fixed-size buffer on a FileChannel, and numbers are parsed
+ * straight from the bytes in the buffer, so reading a file of pixel values never creates a String
+ * per value or a copy of the whole file.
+ * <p></p>
+ * A '#' at the start of a token begins a comment that runs to the end of the line, and comments
+ * are skipped like whitespace. A '#' inside a token is part of the token.
+ */
+public class TextTokenizer implements Closeable {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private boolean ended;
+
+  /**
+   * Constructor to create a TextTokenizer reading the given file from its start.
+   *
+   * @param file the file to read.
+   * @throws IOException if the file could not be opened.
+   */
+  protected TextTokenizer(File file) throws IOException {
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.buffer.flip();
+  }
+
+  /**
+   * Returns whether there is another token in the file.
+   *
+   * @return true if another token can be read.
+   * @throws IOException if the file could not be read.
+   */
+  protected boolean hasNext() throws IOException {
+    return skipSeparators();
+  }
+
+  /**
+   * Returns whether the next token looks like an integer, judging by its first character. The
+   * token is not read.
+   *
+   * @return true if another token follows and starts with a digit or a minus sign.
+   * @throws IOException if the file could not be read.
+   */
+  protected boolean hasNextInt() throws IOException {
+    if (!skipSeparators()) {
+      return false;
+    }
+    int c = buffer.get(buffer.position());
+    return c == '-' || (c >= '0' && c <= '9');
+  }
+
+  /**
+   * Reads the next token as a String.
+   *
+   * @return the next token.
+   * @throws IOException if the file could not be read or has no more tokens.
+   */
+  protected String next() throws IOException {
+    if (!skipSeparators()) {
+      throw new EOFException("Unexpected end of file");
+    }
+    StringBuilder token = new StringBuilder();
+    while (available()) {
+      int c = buffer.get(buffer.position()) & 0xFF;
+      if (isWhitespace(c)) {
+        break;
+      }
+      token.append((char) c);
+      buffer.position(buffer.position() + 1);
+    }
+    return token.toString();
+  }
+
+  /**
+   * Reads the next token as a decimal integer, which may start with a minus sign.
+   *
+   * @return the value of the next token.
+   * @throws IOException if the file could not be read, has no more tokens, or the next token is
+   *                     not an integer.
+   */
+  protected int nextInt() throws IOException {
+    if (!skipSeparators()) {
+      throw new EOFException("Unexpected end of file");
+    }
+    boolean negative = false;
+    if (buffer.get(buffer.position()) == '-') {
+      negative = true;
+      buffer.position(buffer.position() + 1);
+    }
+    long value = 0;
+    int digits = 0;
+    while (available()) {
+      int c = buffer.get(buffer.position()) & 0xFF;
+      if (isWhitespace(c)) {
+        break;
+      }
+      if (c < '0' || c > '9' || digits == 10) {
+        throw new IOException("Expected a number");
+      }
+      value = value * 10 + (c - '0');
+      digits++;
+      buffer.position(buffer.position() + 1);
+    }
+    if (negative) {
+      value = -value;
+    }
+    if (digits == 0 || value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+      throw new IOException("Expected a number");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Closes the file being read.
+   *
+   * @throws IOException if the file could not be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Skips whitespace and comments up to the start of the next token.
+   *
+   * @return true if a token follows, or false if the file has ended.
+   * @throws IOException if the file could not be read.
+   */
+  private boolean skipSeparators() throws IOException {
+    boolean inComment = false;
+    while (available()) {
+      int c = buffer.get(buffer.position()) & 0xFF;
+      if (inComment) {
+        inComment = c != '\n' && c != '\r';
+      } else if (c == '#') {
+        inComment = true;
+      } else if (!isWhitespace(c)) {
+        return true;
+      }
+      buffer.position(buffer.position() + 1);
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether at least one unread byte is in the buffer, reading more of the file into the
+   * buffer if it has run out.
+   *
+   * @return true if a byte is available, or false if the file has ended.
+   * @throws IOException if the file could not be read.
+   */
+  private boolean available() throws IOException {
+    if (buffer.hasRemaining()) {
+      return true;
+    }
+    if (ended) {
+      return false;
+    }
+    buffer.clear();
+    int read = 0;
+    while (read == 0) {
+      read = channel.read(buffer);
+    }
+    buffer.flip();
+    if (read < 0) {
+      ended = true;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the given byte is an ASCII whitespace character.
+   */
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0B;
+  }
+}
@@ -0,0 +1,151 @@
+package model;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Divides a canvas into a grid of square tiles of a fixed size. Tiles are numbered row by row,
+ * starting from the top-left corner of the canvas. Tiles on the bottom and right edges are cut
+ * short when the canvas size is not a multiple of the tile size.
+ */
+public class TileGrid {
+  protected static final int TILE_SIZE = 64;
+
+  private final int height;
+  private final int width;
+  private final int tileSize;
+  private final int tilesDown;
+  private final int tilesAcross;
+
+  /**
+   * Constructor to create a TileGrid over a canvas of a given height and width using the default
+   * tile size.
+   *
+   * @param height the height of the canvas.
+   * @param width the width of the canvas.
+   */
+  protected TileGrid(int height, int width) {
+    this(height, width, TILE_SIZE);
+  }
+
+  /**
+   * Constructor to create a TileGrid over a canvas of a given height and width using the given
+   * tile size.
+   *
+   * @param height the height of the canvas.
+   * @param width the width of the canvas.
+   * @param tileSize the height and width of a tile.
+   * @throws IllegalArgumentException if the tile size is less than 1.
+   */
+  protected TileGrid(int height, int width, int tileSize) throws IllegalArgumentException {
+    if (tileSize < 1) {
+      throw new IllegalArgumentException("Tile size must be at least 1!");
+    }
+    this.height = height;
+    this.width = width;
+    this.tileSize = tileSize;
+    this.tilesDown = (height + tileSize - 1) / tileSize;
+    this.tilesAcross = (width + tileSize - 1) / tileSize;
+  }
+
+  /**
+   * Returns the height and width of a full tile.
+   *
+   * @return the tile size.
+   */
+  protected int getTileSize() {
+    return tileSize;
+  }
+
+  /**
+   * Returns the number of rows of tiles.
+   *
+   * @return the number of tiles down the canvas.
+   */
+  protected int getTilesDown() {
+    return tilesDown;
+  }
+
+  /**
+   * Returns the number of columns of tiles.
+   *
+   * @return the number of tiles across the canvas.
+   */
+  protected int getTilesAcross() {
+    return tilesAcross;
+  }
+
+  /**
+   * Returns the total number of tiles.
+   *
+   * @return the number of tiles in the grid.
+   */
+  protected int getTileCount() {
+    return tilesDown * tilesAcross;
+  }
+
+  /**
+   * Returns the first canvas row covered by the given tile.
+   *
+   * @param tile the tile number.
+   * @return the tile's first row.
+   */
+  protected int getRowStart(int tile) {
+    return (tile / tilesAcross) * tileSize;
+  }
+
+  /**
+   * Returns the canvas row after the last row covered by the given tile.
+   *
+   * @param tile the tile number.
+   * @return the row after the tile's last row.
+   */
+  protected int getRowEnd(int tile) {
+    return Math.min(getRowStart(tile) + tileSize, height);
+  }
+
+  /**
+   * Returns the first canvas column covered by the given tile.
+   *
+   * @param tile the tile number.
+   * @return the tile's first column.
+   */
+  protected int getColStart(int tile) {
+    return (tile % tilesAcross) * tileSize;
+  }
+
+  /**
+   * Returns the canvas column after the last column covered by the given tile.
+   *
+   * @param tile the tile number.
+   * @return the column after the tile's last column.
+   */
+  protected int getColEnd(int tile) {
+    return Math.min(getColStart(tile) + tileSize, width);
+  }
+
+  /**
+   * Runs the given action on the number of every tile that overlaps the given area of the
+   * canvas. Parts of the area outside the canvas are ignored.
+   *
+   * @param fromRow the first row of the area.
+   * @param toRow the row after the last row of the area.
+   * @param fromCol the first column of the area.
+   * @param toCol the column after the last column of the area.
+   * @param action the action to run on each tile number.
+   */
+  protected void forEachTileIn(int fromRow, int toRow, int fromCol, int toCol,
+                               IntConsumer action) {
+    fromRow = Math.max(fromRow, 0);
+    fromCol = Math.max(fromCol, 0);
+    toRow = Math.min(toRow, height);
+    toCol = Math.min(toCol, width);
+    if (fromRow >= toRow || fromCol >= toCol) {
+      return;
+    }
+    for (int tileRow = fromRow / tileSize; tileRow <= (toRow - 1) / tileSize; tileRow++) {
+      for (int tileCol = fromCol / tileSize; tileCol <= (toCol - 1) / tileSize; tileCol++) {
+        action.accept(tileRow * tilesAcross + tileCol);
+      }
+    }
+  }
+}
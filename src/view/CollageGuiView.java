@@ -1,8 +1,10 @@
 package view;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -61,6 +63,33 @@ public interface CollageGuiView {
    */
   void updateImagePanel(BufferedImage image);
 
+  /**
+   * Updates image panel with an image shown scaled up, such as a proxy of the collage shown at
+   * the size of the full image.
+   * @param image represents image that is being broadcasted through the program.
+   * @param scale how many times larger the image is shown.
+   */
+  void updateImagePanel(BufferedImage image, int scale);
+
+  /**
+   * Repaints areas of the image shown by updateImagePanel after they were changed in place.
+   * @param areas the areas that changed, in image coordinates.
+   */
+  void repaintImageAreas(List<Rectangle> areas);
+
+  /**
+   * Gets the area of the image that is currently visible in the image panel. An image shown
+   * scaled up by updateImagePanel is measured in its own pixels, not the panel's.
+   * @return the visible area in image coordinates, or null if no image is shown yet.
+   */
+  Rectangle getVisibleImageArea();
+
+  /**
+   * Shows an error message in a dialog.
+   * @param message the message to show.
+   */
+  void renderMessage(String message);
+
   /**
    * Adds multiple layers to program holder.
    * @param layers names of layers to add.
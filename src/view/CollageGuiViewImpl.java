@@ -4,18 +4,20 @@ import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.FlowLayout;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListModel;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JFileChooser;
@@ -33,6 +35,8 @@ import javax.swing.ListSelectionModel;
 import javax.swing.filechooser.FileFilter;
 
 import controller.Features;
+import model.Filter;
+import model.FilterRegistry;
 
 /**
  * An implementation of the CollageGuiView interface. Represents an application GUI window
@@ -40,6 +44,8 @@ import controller.Features;
  * use a Collage program and its features.
  */
 public class CollageGuiViewImpl extends JFrame implements CollageGuiView {
+  // the zoom levels offered, each half the size of the one before
+  private static final String[] ZOOM_LABELS = {"100%", "50%", "25%", "12.5%", "6.25%"};
 
   private JMenuItem newProject;
   private JMenuItem loadProject;
@@ -48,8 +54,11 @@ public class CollageGuiViewImpl extends JFrame implements CollageGuiView {
   private JMenuItem addImage;
   private JPanel layerListPanel;
   private JPanel imagePanel;
+  private ImageCanvas imageCanvas;
   private JPanel filterPanel;
   private JComboBox<String> filterDropdown;
+  private JComboBox<String> zoomDropdown;
+  private JCheckBox previewCheckBox;
   private JScrollPane imageScrollPane;
   private JButton addLayerButton;
   private JList<String> layerList;
@@ -148,6 +157,9 @@ public class CollageGuiViewImpl extends JFrame implements CollageGuiView {
               layerList.getSelectedValue());
       layerAndFilterMap.put(layerList.getSelectedValue(), filterDropdown.getSelectedIndex());
     });
+    // the index of each zoom label is its zoom level
+    zoomDropdown.addActionListener(e -> f.zoom(zoomDropdown.getSelectedIndex()));
+    previewCheckBox.addActionListener(e -> f.setPreviewMode(previewCheckBox.isSelected()));
   }
 
   /**
@@ -356,6 +368,14 @@ public class CollageGuiViewImpl extends JFrame implements CollageGuiView {
     imageScrollPane = new JScrollPane(imagePanel);
     imagePanel.setPreferredSize(new Dimension(800, 600));
     mainPanel.add(imageScrollPane, BorderLayout.CENTER);
+    JPanel zoomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    zoomPanel.add(new JLabel("Zoom:"));
+    zoomDropdown = new JComboBox<>(ZOOM_LABELS);
+    zoomPanel.add(zoomDropdown);
+    previewCheckBox = new JCheckBox("Preview");
+    previewCheckBox.setToolTipText("Show a smaller proxy of a large collage while editing");
+    zoomPanel.add(previewCheckBox);
+    mainPanel.add(zoomPanel, BorderLayout.NORTH);
 
     layerListModel = new DefaultListModel<>();
 
@@ -373,11 +393,10 @@ public class CollageGuiViewImpl extends JFrame implements CollageGuiView {
     mainPanel.add(interactionPanel, BorderLayout.EAST);
     interactionPanel.add(layerListPanel, BorderLayout.NORTH);
     filterPanel = new JPanel(new FlowLayout());
-    String[] filters = {"Normal", "Brighten Value", "Brighten Intensity", "Brighten Luma",
-                        "Darken Value", "Darken Intensity", "Darken Luma",
-                        "Filter Red", "Filter Blue", "Filter Green", "Blend Difference" ,
-                        "Blend Multiply", "Blend Screen"};
-    filterDropdown = new JComboBox<>(filters);
+    filterDropdown = new JComboBox<>();
+    for (Filter filter : FilterRegistry.getFilters()) {
+      filterDropdown.addItem(filter.getLabel());
+    }
     filterPanel.add(filterDropdown);
     filterPanel.setVisible(false);
     interactionPanel.add(filterPanel, BorderLayout.SOUTH);
@@ -413,37 +432,66 @@ public class CollageGuiViewImpl extends JFrame implements CollageGuiView {
   }
 
   /**
-   * Updates image panel to keep the program refreshed and up to date.
+   * Updates image panel to keep the program refreshed and up to date. The panel and its canvas
+   * are built the first time and kept afterward, so later images only repaint the canvas and
+   * the scroll position is kept.
    * @param i represents image that is being broadcasted through the program.
    */
   public void updateImagePanel(BufferedImage i) {
+    updateImagePanel(i, 1);
+  }
+
+  /**
+   * Updates image panel with an image shown scaled up, such as a proxy of the collage shown at
+   * the size of the full image.
+   * @param i represents image that is being broadcasted through the program.
+   * @param scale how many times larger the image is shown.
+   */
+  public void updateImagePanel(BufferedImage i, int scale) {
     if (i == null) {
       System.out.println("null image!");
       throw new IllegalArgumentException("Image cannot be null!");
     }
 
-    imagePanel = new JPanel();
-    imagePanel.setBorder(BorderFactory.createTitledBorder("Image"));
-
-    /*
-     * test output of the image to a file
-    try {
-      File output = new File("output.png");
-      ImageIO.write(i, "png", output);
-      System.out.println("image saved to: " + output.getAbsolutePath());
-    } catch (IOException e) {
-      System.out.println("rip");
+    if (imageCanvas == null) {
+      imageCanvas = new ImageCanvas();
+      imagePanel = new JPanel();
+      imagePanel.setBorder(BorderFactory.createTitledBorder("Image"));
+      imagePanel.add(imageCanvas);
+      imageScrollPane.setViewportView(imagePanel);
+      imageScrollPane.setPreferredSize(new Dimension(500, 500));
+      imageScrollPane.setVisible(true);
     }
-     */
-
-    JLabel imageLabel = new JLabel(new ImageIcon(i));
-    imagePanel.add(imageLabel);
-    imagePanel.revalidate();
-    imagePanel.repaint();
-    imageScrollPane.setViewportView(imagePanel);
-    imageScrollPane.setPreferredSize(new Dimension(500, 500));
-    imageScrollPane.setVisible(true);
-    System.out.println("Image updated!");
+    imageCanvas.setImage(i, scale);
+  }
+
+  /**
+   * Repaints areas of the image shown in the image panel after they were changed in place.
+   * @param areas the areas that changed, in image coordinates.
+   */
+  public void repaintImageAreas(List<Rectangle> areas) {
+    if (imageCanvas != null) {
+      imageCanvas.repaintAreas(areas);
+    }
+  }
+
+  /**
+   * Gets the area of the image that is currently visible in the image panel.
+   * @return the visible area in image coordinates, or null if no image is shown yet.
+   */
+  public Rectangle getVisibleImageArea() {
+    if (imageCanvas == null) {
+      return null;
+    }
+    return imageCanvas.getVisibleImageArea();
+  }
+
+  /**
+   * Shows an error message in a dialog.
+   * @param message the message to show.
+   */
+  public void renderMessage(String message) {
+    JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
   }
 
   /**
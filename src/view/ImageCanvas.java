@@ -0,0 +1,120 @@
+package view;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import javax.swing.JComponent;
+
+/**
+ * A component that shows one image, kept for as long as the component is shown. Updating the
+ * image in place and repainting only the areas that changed costs a partial repaint, instead of
+ * rebuilding a label and icon and laying the window out again for every update. The component's
+ * preferred size is the size of its image, and it only lays out again when that size changes, so
+ * a scroll pane around it keeps its scroll position.
+ * <p></p>
+ * An image can also be shown scaled up by a whole number, such as a smaller proxy of the collage
+ * shown at the size of the full image, in which case the component's size and the areas it
+ * repaints are scaled with it.
+ */
+public class ImageCanvas extends JComponent {
+  private BufferedImage image;
+  private int scale = 1;
+
+  /**
+   * Shows the given image, repainting the whole component.
+   *
+   * @param image the image to show, or null to show nothing.
+   */
+  public void setImage(BufferedImage image) {
+    setImage(image, 1);
+  }
+
+  /**
+   * Shows the given image scaled up by a whole number, repainting the whole component.
+   *
+   * @param image the image to show, or null to show nothing.
+   * @param scale how many times larger the image is shown.
+   * @throws IllegalArgumentException if the scale is less than 1.
+   */
+  public void setImage(BufferedImage image, int scale) throws IllegalArgumentException {
+    if (scale < 1) {
+      throw new IllegalArgumentException("Scale must be at least 1!");
+    }
+    boolean resized = image == null || this.image == null || scale != this.scale
+            || image.getWidth() != this.image.getWidth()
+            || image.getHeight() != this.image.getHeight();
+    this.image = image;
+    this.scale = scale;
+    if (resized) {
+      revalidate();
+    }
+    repaint();
+  }
+
+  /**
+   * Returns the image being shown.
+   *
+   * @return the image, or null if there is none.
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Returns how many times larger the image is shown.
+   *
+   * @return the scale of the image.
+   */
+  public int getScale() {
+    return scale;
+  }
+
+  /**
+   * Repaints the given areas of the image, after they have been changed in place.
+   *
+   * @param areas the areas that changed, in image coordinates.
+   */
+  public void repaintAreas(List<Rectangle> areas) {
+    for (Rectangle area : areas) {
+      repaint(area.x * scale, area.y * scale, area.width * scale, area.height * scale);
+    }
+  }
+
+  /**
+   * Returns the part of the image that is visible on screen. The component's visible area is
+   * divided by the scale, taking in every pixel of the image that is even partly visible.
+   *
+   * @return the visible area in image coordinates, or null if there is no image.
+   */
+  public Rectangle getVisibleImageArea() {
+    if (image == null) {
+      return null;
+    }
+    Rectangle visible = getVisibleRect();
+    int x = visible.x / scale;
+    int y = visible.y / scale;
+    Rectangle area = new Rectangle(x, y, (visible.x + visible.width + scale - 1) / scale - x,
+            (visible.y + visible.height + scale - 1) / scale - y);
+    return area.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+  }
+
+  @Override
+  public Dimension getPreferredSize() {
+    if (image == null) {
+      return new Dimension(0, 0);
+    }
+    return new Dimension(image.getWidth() * scale, image.getHeight() * scale);
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    if (image != null) {
+      // the graphics are clipped to the area being repainted, so only that area is drawn
+      g.drawImage(image, 0, 0, image.getWidth() * scale, image.getHeight() * scale, null);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package controller;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for BatchRenderer class.
+ */
+public class BatchRendererTest {
+
+  private static Path write(Path dir, String name, String... lines) throws IOException {
+    return Files.write(dir.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+  }
+
+  private static String path(Path file) {
+    return file.toString().replace(File.separatorChar, '/');
+  }
+
+  @Test
+  public void testFindScriptsInDirectory() throws IOException {
+    Path dir = Files.createTempDirectory("batch");
+    Path b = write(dir, "b.txt", "quit");
+    Path a = write(dir, "a.txt", "quit");
+    write(dir, ".hidden", "quit");
+    Files.createDirectory(dir.resolve("sub"));
+
+    assertEquals(Arrays.asList(a, b), BatchRenderer.findScripts(dir));
+  }
+
+  @Test
+  public void testFindScriptsInManifest() throws IOException {
+    Path dir = Files.createTempDirectory("batch");
+    Path manifest = write(dir, "manifest", "# nightly collages", "", "  one.txt  ", "two.txt");
+
+    List<Path> scripts = BatchRenderer.findScripts(manifest);
+    assertEquals(2, scripts.size());
+    assertEquals("one.txt", scripts.get(0).toString());
+    assertEquals("two.txt", scripts.get(1).toString());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFindScriptsMissing() throws IOException {
+    BatchRenderer.findScripts(Files.createTempDirectory("batch").resolve("missing"));
+  }
+
+  @Test
+  public void testRunScripts() throws IOException, InterruptedException {
+    Path dir = Files.createTempDirectory("batch");
+    List<Path> scripts = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      Path image = dir.resolve("out" + i + ".png");
+      scripts.add(write(dir, "script" + i, "new-project 50 40", "add-layer top",
+              "add-image-to-layer top res/grogu.png " + i + " 0",
+              "set-filter top brighten-luma", "save-image " + path(image), "quit"));
+    }
+    Path failing = write(dir, "failing", "new-project 10 10", "add-layer top",
+            "add-image-to-layer top res/missing.png 0 0", "quit");
+    scripts.add(failing);
+    Path missing = dir.resolve("missing");
+    scripts.add(missing);
+
+    List<BatchRenderer.Result> results = new BatchRenderer(scripts, 3).run();
+    assertEquals(scripts.size(), results.size());
+    for (int i = 0; i < 6; i++) {
+      BatchRenderer.Result result = results.get(i);
+      assertEquals(scripts.get(i), result.getScript());
+      assertTrue(result.getOutput(), result.succeeded());
+      assertTrue(result.getMillis() >= 0);
+      assertTrue(Files.exists(dir.resolve("out" + i + ".png")));
+    }
+
+    assertFalse(results.get(6).succeeded());
+    assertEquals(1, results.get(6).getFailedCommands());
+    assertTrue(results.get(6).getOutput().contains("Image not found!"));
+    assertFalse(results.get(7).succeeded());
+    assertEquals(-1, results.get(7).getFailedCommands());
+
+    StringBuilder report = new StringBuilder();
+    BatchRenderer.report(results, report);
+    String[] lines = report.toString().split("\\R");
+    assertTrue(lines[0].startsWith("OK"));
+    assertTrue(report.toString().contains("FAILED"));
+    assertTrue(report.toString().contains("Image not found!"));
+    assertTrue(lines[lines.length - 1].startsWith("8 scripts, 2 failed"));
+  }
+
+  @Test
+  public void testProjectsWithDifferentMaximumValues() throws IOException, InterruptedException {
+    Path dir = Files.createTempDirectory("batch");
+    Path low = write(dir, "low.txt", "C1", "2 1", "100", "bg Normal",
+            "100 50 0 100 20 20 20 100");
+    Path full = write(dir, "full.txt", "C1", "2 1", "255", "bg Normal",
+            "200 100 0 255 20 20 20 255");
+    List<Path> scripts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Path project = i % 2 == 0 ? low : full;
+      scripts.add(write(dir, "script" + i, "load-project " + path(project),
+              "save-project " + path(dir.resolve("saved" + i + ".txt")),
+              "save-image " + path(dir.resolve("saved" + i + ".ppm")), "quit"));
+    }
+
+    List<BatchRenderer.Result> results = new BatchRenderer(scripts, 4).run();
+    for (int i = 0; i < 8; i++) {
+      assertTrue(results.get(i).getOutput(), results.get(i).succeeded());
+      // every script saves with a maximum of 255, whatever the others loaded meanwhile
+      List<String> project = Files.readAllLines(dir.resolve("saved" + i + ".txt"));
+      assertEquals("255", project.get(2));
+      assertEquals(i % 2 == 0 ? "255 128 0 255 51 51 51 255 " : "200 100 0 255 20 20 20 255 ",
+              project.get(4));
+      List<String> image = Files.readAllLines(dir.resolve("saved" + i + ".ppm"));
+      assertEquals("255", image.get(2));
+      assertEquals(i % 2 == 0 ? "255 128 0 51 51 51 " : "200 100 0 20 20 20 ", image.get(3));
+    }
+  }
+
+  @Test
+  public void testRunNoScripts() throws InterruptedException {
+    assertTrue(new BatchRenderer(Collections.emptyList(), 4).run().isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidThreads() {
+    new BatchRenderer(Collections.emptyList(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullScripts() {
+    new BatchRenderer(null, 1);
+  }
+}
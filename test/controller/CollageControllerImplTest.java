@@ -362,6 +362,26 @@ public class CollageControllerImplTest {
             "layer/filter!\n", appendable.toString());
   }
 
+  /**
+   * Test if add-filter command stacks filters.
+   */
+  @Test
+  public void addFilterWorks() {
+    CollageModel model = new CollageModelImpl();
+    Appendable appendable = new StringBuilder();
+    CollageView view = new CollageViewImpl(appendable);
+    Readable readable = new StringReader("new-project 100 100 add-layer layer " +
+            "set-filter layer brighten-value add-filter layer filter-red " +
+            "add-filter layer invalidFilter");
+    CollageController controller = new CollageControllerImpl(model, view, readable);
+
+    controller.run();
+
+    assertEquals("New 100x100 project created\nNew layer (layer) added\nbrighten-value " +
+            "applied to layer layer\nfilter-red added to layer layer\n" +
+            "Invalid layer/filter!\n", appendable.toString());
+  }
+
   /**
    * Test if set-filer command is called before project has started.
    */
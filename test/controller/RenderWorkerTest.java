@@ -0,0 +1,172 @@
+package controller;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for RenderWorker class.
+ */
+public class RenderWorkerTest {
+
+  @Test
+  public void testRendersOffCallingThread() throws InterruptedException {
+    BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    List<Thread> renderThreads = new CopyOnWriteArrayList<>();
+    List<BufferedImage> published = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+    RenderWorker worker = new RenderWorker(() -> {
+      renderThreads.add(Thread.currentThread());
+      return image;
+    }, i -> {
+      published.add(i);
+      done.countDown();
+    }, m -> { }, Runnable::run);
+
+    worker.requestRender();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertNotEquals(Thread.currentThread(), renderThreads.get(0));
+    assertSame(image, published.get(0));
+    worker.shutdown();
+  }
+
+  @Test
+  public void testCoalescesRequests() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger renders = new AtomicInteger();
+    AtomicInteger state = new AtomicInteger();
+    List<Integer> published = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+
+    RenderWorker worker = new RenderWorker(() -> {
+      int render = renders.incrementAndGet();
+      BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+      image.setRGB(0, 0, state.get());
+      if (render == 1) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return image;
+    }, i -> {
+      published.add(i.getRGB(0, 0));
+      if (i.getRGB(0, 0) == 20) {
+        done.countDown();
+      }
+    }, m -> { }, Runnable::run);
+
+    worker.requestRender();
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    for (int i = 1; i <= 20; i++) {
+      state.set(i);
+      worker.requestRender();
+    }
+    release.countDown();
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(2, renders.get());
+    // the first image was already out of date when it was finished, so only the latest is shown
+    assertEquals(List.of(20), published);
+    worker.shutdown();
+  }
+
+  @Test
+  public void testFailedRenderDoesNotStopWorker() throws InterruptedException {
+    AtomicInteger renders = new AtomicInteger();
+    List<BufferedImage> published = new CopyOnWriteArrayList<>();
+    List<String> messages = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+    RenderWorker worker = new RenderWorker(() -> {
+      int render = renders.incrementAndGet();
+      if (render == 1) {
+        throw new IllegalStateException("No project is currently open!");
+      }
+      if (render == 2) {
+        return null;
+      }
+      return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    }, i -> {
+      published.add(i);
+      done.countDown();
+    }, messages::add, Runnable::run);
+
+    for (int i = 0; i < 3; i++) {
+      worker.requestRender();
+      while (renders.get() <= i) {
+        Thread.sleep(1);
+      }
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(1, published.size());
+    assertEquals(List.of("Unable to render collage: No project is currently open!"), messages);
+    worker.shutdown();
+  }
+
+  @Test
+  public void testPublishesStepsUntilSuperseded() throws InterruptedException {
+    CountDownLatch firstStepShown = new CountDownLatch(1);
+    CountDownLatch requestedAgain = new CountDownLatch(1);
+    AtomicInteger renders = new AtomicInteger();
+    List<Integer> published = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+    RenderWorker[] worker = new RenderWorker[1];
+
+    worker[0] = new RenderWorker(() -> {
+      int render = renders.incrementAndGet();
+      BufferedImage step = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+      step.setRGB(0, 0, render * 10 + 1);
+      worker[0].publish(step);
+      if (render == 1) {
+        try {
+          requestedAgain.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        assertTrue(worker[0].isSuperseded());
+        return null;
+      }
+      BufferedImage last = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+      last.setRGB(0, 0, render * 10 + 2);
+      return last;
+    }, i -> {
+      published.add(i.getRGB(0, 0));
+      if (i.getRGB(0, 0) == 11) {
+        firstStepShown.countDown();
+      } else if (i.getRGB(0, 0) == 22) {
+        done.countDown();
+      }
+    }, m -> { }, Runnable::run);
+
+    worker[0].requestRender();
+    assertTrue(firstStepShown.await(10, TimeUnit.SECONDS));
+    worker[0].requestRender();
+    requestedAgain.countDown();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(List.of(11, 21, 22), published);
+    worker[0].shutdown();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullRenderer() {
+    new RenderWorker(null, i -> { }, m -> { }, Runnable::run);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullReporter() {
+    new RenderWorker(() -> null, i -> { }, null, Runnable::run);
+  }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for BufferedImageCodec class.
+ */
+public class BufferedImageCodecTest {
+
+  private static final int[] TYPES = {
+    BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_BGR,
+    BufferedImage.TYPE_INT_ARGB_PRE, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+    BufferedImage.TYPE_4BYTE_ABGR_PRE, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_INDEXED,
+    BufferedImage.TYPE_USHORT_565_RGB
+  };
+
+  /**
+   * Checks that every pixel of the raster is what getRGB returns for the image.
+   */
+  private static void assertMatchesGetRgb(BufferedImage image, Raster raster) {
+    assertEquals(image.getHeight(), raster.getHeight());
+    assertEquals(image.getWidth(), raster.getWidth());
+    for (int row = 0; row < image.getHeight(); row++) {
+      for (int col = 0; col < image.getWidth(); col++) {
+        assertEquals("type " + image.getType() + " at " + row + ", " + col,
+                image.getRGB(col, row), raster.get(row, col));
+      }
+    }
+  }
+
+  private static BufferedImage randomImage(int type, int width, int height) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    Random random = new Random(type);
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        image.setRGB(col, row, random.nextInt());
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void testReadMatchesGetRgb() {
+    for (int type : TYPES) {
+      BufferedImage image = randomImage(type, 7, 5);
+      assertMatchesGetRgb(image, BufferedImageCodec.read(image));
+    }
+  }
+
+  @Test
+  public void testReadSubimage() {
+    for (int type : TYPES) {
+      BufferedImage image = randomImage(type, 9, 8).getSubimage(2, 3, 5, 4);
+      assertMatchesGetRgb(image, BufferedImageCodec.read(image));
+    }
+  }
+
+  @Test
+  public void testReadImageFiles() throws IOException {
+    for (String name : new String[] {"res/grogu.png", "res/grogufilters.jpg"}) {
+      File file = new File(name);
+      if (file.isFile()) {
+        BufferedImage image = ImageIO.read(file);
+        assertMatchesGetRgb(image, BufferedImageCodec.read(image));
+      }
+    }
+  }
+
+  @Test
+  public void testWrite() {
+    Raster raster = new Raster(3, 4, 0);
+    Random random = new Random(1);
+    for (int i = 0; i < raster.getData().length; i++) {
+      raster.getData()[i] = random.nextInt();
+    }
+
+    BufferedImage argb = BufferedImageCodec.write(raster, true);
+    assertEquals(BufferedImage.TYPE_INT_ARGB, argb.getType());
+    BufferedImage rgb = BufferedImageCodec.write(raster, false);
+    assertEquals(BufferedImage.TYPE_INT_RGB, rgb.getType());
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 4; col++) {
+        assertEquals(raster.get(row, col), argb.getRGB(col, row));
+        assertEquals(raster.get(row, col) | 0xFF000000, rgb.getRGB(col, row));
+      }
+    }
+
+    // the image has its own copy of the pixels
+    int first = raster.get(0, 0);
+    raster.fill(0);
+    assertEquals(first, argb.getRGB(0, 0));
+  }
+}
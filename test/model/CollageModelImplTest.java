@@ -3,7 +3,15 @@ package model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.imageio.ImageIO;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -105,6 +113,25 @@ public class CollageModelImplTest {
     model.load("invalid/path");
   }
 
+  @Test
+  public void testLoadScalesOtherMaximumValue() throws IOException {
+    File file = File.createTempFile("project", ".txt");
+    file.deleteOnExit();
+    try (FileWriter out = new FileWriter(file)) {
+      out.write("C1\n1 1\n100\nbg Normal\n100 50 0 100\n"
+              + "layer brighten-value\n60 20 10 100\n");
+    }
+    model.load(file);
+    // the scaled layer is brightened by its largest component, 153
+    assertEquals(0xFFFFCCB3, model.getCollageImage().getRGB(0, 0));
+
+    model.saveProject(file);
+    List<String> lines = Files.readAllLines(file.toPath());
+    assertEquals("255", lines.get(2));
+    assertEquals("255 128 0 255 ", lines.get(4));
+    assertEquals("153 51 26 255 ", lines.get(6));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testLoadInvalidProjectFile() throws IOException {
     model.newProject(100, 100);
@@ -116,6 +143,116 @@ public class CollageModelImplTest {
     model.quitProject();
   }
 
+  @Test
+  public void testUpdateCollageImage() {
+    model.newProject(150, 100);
+    model.addLayer("layer");
+    BufferedImage image = model.getCollageImage();
+    assertEquals(List.of(new Rectangle(0, 0, 100, 150)), model.updateCollageImage(image));
+    assertEquals(List.of(), model.updateCollageImage(image));
+
+    model.setFilter("layer", "filter-red");
+    List<Rectangle> changed = model.updateCollageImage(image);
+    assertEquals(List.of(new Rectangle(0, 0, 100, 150)), changed);
+    BufferedImage expected = model.getCollageImage();
+    for (int row = 0; row < 150; row++) {
+      for (int col = 0; col < 100; col++) {
+        assertEquals(expected.getRGB(col, row), image.getRGB(col, row));
+      }
+    }
+  }
+
+  @Test
+  public void testUpdateCollageImageArea() {
+    model.newProject(150, 100);
+    assertEquals(150, model.getCanvasHeight());
+    assertEquals(100, model.getCanvasWidth());
+    model.addLayer("layer");
+    BufferedImage image = new BufferedImage(100, 150, BufferedImage.TYPE_INT_ARGB);
+    model.updateCollageImage(image);
+
+    model.setFilter("layer", "darken-luma");
+    assertEquals(List.of(new Rectangle(0, 0, 64, 64)),
+            model.updateCollageImage(image, new Rectangle(10, 10, 20, 20)));
+    assertEquals(List.of(new Rectangle(64, 0, 36, 64), new Rectangle(0, 64, 100, 86)),
+            model.updateCollageImage(image, new Rectangle(0, 0, 100, 150)));
+    BufferedImage expected = model.getCollageImage();
+    for (int row = 0; row < 150; row++) {
+      for (int col = 0; col < 100; col++) {
+        assertEquals(expected.getRGB(col, row), image.getRGB(col, row));
+      }
+    }
+  }
+
+  @Test
+  public void testUpdateCollageImageAtLevel() {
+    model.newProject(150, 100);
+    assertEquals(75, model.getCanvasHeight(1));
+    assertEquals(50, model.getCanvasWidth(1));
+    assertEquals(10, model.getCanvasHeight(4));
+    assertEquals(7, model.getCanvasWidth(4));
+    BufferedImage image = new BufferedImage(50, 75, BufferedImage.TYPE_INT_ARGB);
+    assertEquals(List.of(new Rectangle(0, 0, 50, 75)),
+            model.updateCollageImage(image, new Rectangle(0, 0, 50, 75), 1));
+    assertEquals(0xFFFFFFFF, image.getRGB(49, 74));
+
+    // each level keeps track of what it has copied on its own
+    model.updateCollageImage(new BufferedImage(100, 150, BufferedImage.TYPE_INT_ARGB));
+    assertEquals(List.of(),
+            model.updateCollageImage(image, new Rectangle(0, 0, 50, 75), 1));
+  }
+
+  @Test
+  public void testPreviewLevel() throws IOException {
+    model.newProject(3000, 100);
+    assertEquals(0, model.getPreviewLevel());
+    model.setPreviewMode(true);
+    assertEquals(2, model.getPreviewLevel());
+    model.newProject(1024, 1000);
+    assertEquals(0, model.getPreviewLevel());
+    model.newProject(100, 1025);
+    assertEquals(1, model.getPreviewLevel());
+
+    // saved images are rendered at full size whatever the preview level
+    File file = File.createTempFile("preview", ".png");
+    file.deleteOnExit();
+    model.saveImage(file.getPath());
+    BufferedImage saved = ImageIO.read(file);
+    assertEquals(1025, saved.getWidth());
+    assertEquals(100, saved.getHeight());
+
+    model.setPreviewMode(false);
+    assertEquals(0, model.getPreviewLevel());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPreviewLevelNoProject() {
+    model.setPreviewMode(true);
+    model.getPreviewLevel();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLevel() {
+    model.newProject(150, 100);
+    model.getCanvasHeight(-1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCanvasSizeNoProject() {
+    model.getCanvasHeight();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUpdateCollageImageWrongSize() {
+    model.newProject(150, 100);
+    model.updateCollageImage(new BufferedImage(150, 100, BufferedImage.TYPE_INT_ARGB));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUpdateCollageImageNoProject() {
+    model.updateCollageImage(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+  }
+
   /*
   @Test
   public void testQuitProject() {
@@ -0,0 +1,232 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Test class for compositor class.
+ */
+public class CompositorTest {
+  private List<Layer> layers;
+
+  @Before
+  public void setUp() {
+    layers = new ArrayList<>();
+    layers.add(new Layer(20, 30));
+    for (int k = 0; k < 5; k++) {
+      Layer layer = new Layer("layer" + k, 20, 30);
+      Raster raster = layer.getRaster();
+      for (int i = k; i < 10 + k; i++) {
+        for (int j = 2 * k; j < 15 + 2 * k; j++) {
+          raster.set(i, j, Raster.pack(40 * k, 200 - 30 * k, 7 * i, 100 + 30 * k));
+        }
+      }
+      layer.markChanged();
+      layers.add(layer);
+    }
+    layers.get(2).setFilter("brighten-luma");
+    layers.get(4).setFilter("filter-red");
+  }
+
+  /**
+   * Renders the layers with a compositor that has nothing cached.
+   */
+  private int[] freshRender() {
+    return new Compositor(20, 30).render(layers).getData().clone();
+  }
+
+  @Test
+  public void testFirstRenderFiltersEveryLayer() {
+    Compositor compositor = new Compositor(20, 30);
+    compositor.render(layers);
+    assertEquals(6, compositor.getLastFilteredCount());
+    compositor.render(layers);
+    assertEquals(0, compositor.getLastFilteredCount());
+  }
+
+  @Test
+  public void testChangingTopLayerOnlyFiltersTopLayer() {
+    Compositor compositor = new Compositor(20, 30);
+    compositor.render(layers);
+    layers.get(5).setFilter("darken-value");
+    int[] result = compositor.render(layers).getData();
+    assertEquals(1, compositor.getLastFilteredCount());
+    assertArrayEquals(freshRender(), result);
+  }
+
+  @Test
+  public void testChangingLowerLayerRecompositesLayersAbove() {
+    Compositor compositor = new Compositor(20, 30);
+    compositor.render(layers);
+    layers.get(1).getRaster().set(5, 5, Raster.pack(0, 0, 0, 255));
+    layers.get(1).markChanged();
+    int[] result = compositor.render(layers).getData();
+    assertEquals(1, compositor.getLastFilteredCount());
+    assertArrayEquals(freshRender(), result);
+  }
+
+  @Test
+  public void testAddedAndRemovedLayers() {
+    Compositor compositor = new Compositor(20, 30);
+    compositor.render(layers);
+    Layer extra = new Layer("extra", 20, 30);
+    extra.getRaster().fill(Raster.pack(10, 20, 30, 128));
+    layers.add(extra);
+    assertArrayEquals(freshRender(), compositor.render(layers).getData());
+    assertEquals(1, compositor.getLastFilteredCount());
+    layers.remove(3);
+    assertArrayEquals(freshRender(), compositor.render(layers).getData());
+  }
+
+  @Test
+  public void testBlendUsesCompositeBeneath() {
+    Raster beneath = new Compositor(20, 30).render(layers).copy();
+    Layer top = new Layer("top", 20, 30);
+    top.getRaster().fill(Raster.pack(200, 100, 50, 255));
+    top.setFilter("blend-difference");
+    layers.add(top);
+    Raster result = new Compositor(20, 30).render(layers);
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 30; j++) {
+        int below = beneath.get(i, j);
+        int expected = Raster.pack(200 - Raster.red(below), 100 - Raster.green(below),
+                50 - Raster.blue(below), 255);
+        assertEquals(expected, result.get(i, j));
+      }
+    }
+  }
+
+  @Test
+  public void testBlendLayerUpdatesWhenLayerBeneathChanges() {
+    layers.get(4).setFilter("blend-screen");
+    layers.get(5).setFilter("blend-multiply");
+    Compositor compositor = new Compositor(20, 30);
+    compositor.render(layers);
+    layers.get(2).setFilter("darken-intensity");
+    int[] result = compositor.render(layers).getData();
+    assertEquals(3, compositor.getLastFilteredCount());
+    assertArrayEquals(freshRender(), result);
+  }
+
+  @Test
+  public void testSmallEditOnlyRecompositesItsTiles() {
+    List<Layer> stack = new ArrayList<>();
+    stack.add(new Layer(300, 200));
+    stack.add(new Layer("a", 300, 200));
+    stack.add(new Layer("b", 300, 200));
+    stack.get(2).setFilter("darken-luma");
+    Compositor compositor = new Compositor(300, 200);
+    compositor.render(stack);
+    assertEquals(new TileGrid(300, 200).getTileCount(), compositor.getLastTileCount());
+
+    stack.get(1).getRaster().set(70, 70, Raster.pack(1, 2, 3, 255));
+    stack.get(1).markChanged(70, 71, 70, 71);
+    int[] result = compositor.render(stack).getData();
+    assertEquals(1, compositor.getLastTileCount());
+    assertArrayEquals(new Compositor(300, 200).render(stack).getData(), result);
+  }
+
+  @Test
+  public void testChangedAreas() {
+    List<Layer> stack = new ArrayList<>();
+    stack.add(new Layer(300, 200));
+    stack.add(new Layer("a", 300, 200));
+    Compositor compositor = new Compositor(300, 200);
+    compositor.render(stack);
+    assertEquals(List.of(new Rectangle(0, 0, 200, 300)), compositor.takeChangedAreas());
+    compositor.render(stack);
+    assertEquals(List.of(), compositor.takeChangedAreas());
+
+    // tiles are 64 pixels, so this edit covers two tiles across and two down
+    stack.get(1).markChanged(70, 140, 70, 140);
+    // and this one the last, partial column of tiles in the first two rows of tiles
+    stack.get(1).markChanged(0, 100, 195, 200);
+    compositor.render(stack);
+    // where they meet, in the second row of tiles, the two edits are one run of tiles
+    assertEquals(List.of(new Rectangle(192, 0, 8, 64), new Rectangle(64, 64, 136, 64),
+            new Rectangle(64, 128, 128, 64)), compositor.takeChangedAreas());
+    assertEquals(List.of(), compositor.takeChangedAreas());
+
+    // changes build up until they are taken
+    stack.get(1).markChanged(0, 1, 0, 1);
+    compositor.render(stack);
+    stack.get(1).markChanged(299, 300, 0, 1);
+    compositor.render(stack);
+    assertEquals(List.of(new Rectangle(0, 0, 64, 64), new Rectangle(0, 256, 64, 44)),
+            compositor.takeChangedAreas());
+  }
+
+  @Test
+  public void testRenderAreaLeavesRestForLater() {
+    List<Layer> stack = new ArrayList<>();
+    stack.add(new Layer(300, 200));
+    stack.add(new Layer("a", 300, 200));
+    stack.get(1).setFilter("brighten-value");
+    Compositor compositor = new Compositor(300, 200);
+    compositor.render(stack);
+    compositor.takeChangedAreas();
+
+    stack.get(1).getRaster().set(10, 10, Raster.pack(1, 2, 3, 255));
+    stack.get(1).getRaster().set(250, 150, Raster.pack(4, 5, 6, 255));
+    stack.get(1).markChanged(10, 11, 10, 11);
+    stack.get(1).markChanged(250, 251, 150, 151);
+    int[] expected = new Compositor(300, 200).render(stack).getData();
+
+    int[] result = compositor.render(stack, 0, 100, 0, 100).getData();
+    assertEquals(1, compositor.getLastTileCount());
+    assertEquals(expected[10 * 200 + 10], result[10 * 200 + 10]);
+    assertNotEquals(expected[250 * 200 + 150], result[250 * 200 + 150]);
+    assertEquals(List.of(new Rectangle(0, 0, 64, 64)), compositor.takeChangedAreas());
+
+    result = compositor.render(stack, 0, 100, 0, 100).getData();
+    assertEquals(0, compositor.getLastTileCount());
+    result = compositor.render(stack).getData();
+    assertEquals(1, compositor.getLastTileCount());
+    assertArrayEquals(expected, result);
+    assertEquals(List.of(new Rectangle(128, 192, 64, 64)), compositor.takeChangedAreas());
+
+    compositor.render(stack, 500, 600, -50, 0);
+    assertEquals(0, compositor.getLastTileCount());
+  }
+
+  @Test
+  public void testRandomEditsMatchFreshRender() {
+    Random random = new Random(5);
+    List<Layer> stack = new ArrayList<>();
+    stack.add(new Layer(300, 200));
+    String[] filters = {"Normal", "brighten-value", "filter-green", "blend-difference",
+                        "blend-screen", "darken-intensity"};
+    for (int k = 0; k < 6; k++) {
+      stack.add(new Layer("layer" + k, 300, 200));
+    }
+    Compositor compositor = new Compositor(300, 200);
+    for (int round = 0; round < 20; round++) {
+      Layer layer = stack.get(1 + random.nextInt(6));
+      if (random.nextBoolean()) {
+        layer.setFilter(filters[random.nextInt(filters.length)]);
+      } else {
+        int row = random.nextInt(250);
+        int col = random.nextInt(150);
+        int argb = Raster.pack(random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+        for (int i = row; i < row + 50; i++) {
+          for (int j = col; j < col + 50; j++) {
+            layer.getRaster().set(i, j, argb);
+          }
+        }
+        layer.markChanged(row, row + 50, col, col + 50);
+      }
+      int[] result = compositor.render(stack).getData();
+      assertArrayEquals(new Compositor(300, 200).render(stack).getData(), result);
+    }
+  }
+}
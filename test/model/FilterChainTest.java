@@ -0,0 +1,93 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for FilterChain class.
+ */
+public class FilterChainTest {
+
+  /**
+   * Fills an array with random packed ARGB values.
+   */
+  private int[] randomPixels(int length, long seed) {
+    Random random = new Random(seed);
+    int[] data = new int[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = random.nextInt();
+    }
+    return data;
+  }
+
+  @Test
+  public void testMatchesFiltersAppliedInTurn() {
+    String[][] stacks = {{"brighten-value", "filter-red"},
+        {"darken-luma", "brighten-intensity", "filter-blue"},
+        {"filter-green", "blend-screen", "brighten-luma"},
+        {"blend-difference", "blend-multiply"}};
+    int[] data = randomPixels(5000, 7);
+    int[] composite = randomPixels(5000, 8);
+    for (String[] stack : stacks) {
+      // each filter swept over the whole range before the next one starts
+      int[] expected = data.clone();
+      for (String name : stack) {
+        FilterRegistry.get(name).apply(expected, composite, expected, 0, expected.length);
+      }
+
+      Filter chain = FilterRegistry.get(String.join("+", stack));
+      int[] actual = new int[data.length];
+      chain.apply(data, composite, actual, 0, data.length);
+      assertArrayEquals(chain.getName(), expected, actual);
+
+      // a range that does not start at zero leaves the rest of the output alone
+      int[] partial = new int[data.length];
+      chain.apply(data, composite, partial, 17, 3001);
+      for (int i = 0; i < data.length; i++) {
+        assertEquals(i >= 17 && i < 3001 ? expected[i] : 0, partial[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testName() {
+    Filter chain = FilterRegistry.get("brighten-value+filter-red");
+    assertEquals("brighten-value+filter-red", chain.getName());
+    assertEquals("Brighten Value + Filter Red", chain.getLabel());
+    assertFalse(chain.isBlend());
+    assertTrue(FilterRegistry.get("filter-red+blend-multiply").isBlend());
+  }
+
+  @Test
+  public void testOfFlattensAndDropsNormal() {
+    assertSame(BuiltInFilter.NORMAL, FilterChain.of(List.of()));
+    assertSame(BuiltInFilter.NORMAL,
+            FilterChain.of(List.of(BuiltInFilter.NORMAL, BuiltInFilter.NORMAL)));
+    assertSame(BuiltInFilter.FILTER_RED,
+            FilterChain.of(List.of(BuiltInFilter.NORMAL, BuiltInFilter.FILTER_RED)));
+
+    Filter inner = FilterChain.of(List.of(BuiltInFilter.BRIGHTEN_LUMA, BuiltInFilter.FILTER_RED));
+    Filter outer = FilterChain.of(List.of(inner, BuiltInFilter.NORMAL,
+            BuiltInFilter.DARKEN_VALUE));
+    assertEquals("brighten-luma+filter-red+darken-value", outer.getName());
+    assertEquals(3, ((FilterChain) outer).getStages().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidStage() {
+    FilterRegistry.get("brighten-value+invalidFilter");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyStage() {
+    FilterRegistry.get("brighten-value++filter-red");
+  }
+}
@@ -0,0 +1,133 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for FilterKernel class.
+ */
+public class FilterKernelTest {
+  private static final String[] FILTERS = {"Normal", "filter-red", "filter-green",
+      "filter-blue", "brighten-value", "brighten-intensity", "brighten-luma", "darken-value",
+      "darken-intensity", "darken-luma", "brighten-luma-red", "darken-value-blue"};
+
+  /**
+   * Filters a single pixel the way filters were originally written, checking the filter's name
+   * for every pixel.
+   */
+  private int reference(String filterOption, int argb) {
+    int r = Raster.red(argb);
+    int g = Raster.green(argb);
+    int b = Raster.blue(argb);
+
+    int inc = 0;
+    if (filterOption.contains("value")) {
+      inc = Math.max(Math.max(r, g), b);
+    } else if (filterOption.contains("intensity")) {
+      inc = (r + g + b) / 3;
+    } else if (filterOption.contains("luma")) {
+      inc = (int) (r * 0.2126 + g * 0.7152 + b * 0.0722);
+    }
+
+    if (filterOption.contains("brighten")) {
+      r = r + inc;
+      g = g + inc;
+      b = b + inc;
+    } else if (filterOption.contains("darken")) {
+      r = r - inc;
+      g = g - inc;
+      b = b - inc;
+    }
+
+    if (filterOption.contains("red")) {
+      g = 0;
+      b = 0;
+    } else if (filterOption.contains("green")) {
+      r = 0;
+      b = 0;
+    } else if (filterOption.contains("blue")) {
+      r = 0;
+      g = 0;
+    }
+    return Raster.pack(r, g, b, Raster.alpha(argb));
+  }
+
+  @Test
+  public void testMatchesPerPixelFilters() {
+    Random random = new Random(11);
+    int[] data = new int[50000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt();
+    }
+    // the extremes are where clamping matters
+    data[0] = 0;
+    data[1] = 0xFFFFFFFF;
+    data[2] = 0x80FF0000;
+
+    for (String filter : FILTERS) {
+      int[] expected = new int[data.length];
+      for (int i = 0; i < data.length; i++) {
+        expected[i] = reference(filter, data[i]);
+      }
+      int[] out = new int[data.length];
+      FilterKernel.compile(filter).apply(data, out, 0, data.length);
+      assertArrayEquals(filter, expected, out);
+    }
+  }
+
+  @Test
+  public void testLumaIsExact() {
+    for (int r = 0; r < 256; r++) {
+      for (int g = 0; g < 256; g++) {
+        for (int b = 0; b < 256; b++) {
+          int expected = (int) (r * 0.2126 + g * 0.7152 + b * 0.0722);
+          if (FilterKernel.luma(r, g, b) != expected) {
+            assertEquals("luma of " + r + " " + g + " " + b, expected,
+                    FilterKernel.luma(r, g, b));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testInPlaceAndRange() {
+    int[] data = {Raster.pack(10, 20, 30, 40), Raster.pack(200, 100, 50, 255),
+        Raster.pack(1, 2, 3, 4)};
+    FilterKernel.compile("brighten-value").apply(data, data, 1, 2);
+    assertEquals(Raster.pack(10, 20, 30, 40), data[0]);
+    assertEquals(Raster.pack(255, 255, 250, 255), data[1]);
+    assertEquals(Raster.pack(1, 2, 3, 4), data[2]);
+  }
+
+  @Test
+  public void testNonBlendingKernelLeavesBlendUnchanged() {
+    int[] data = {Raster.pack(10, 20, 30, 40)};
+    int[] composite = {Raster.pack(1, 1, 1, 255)};
+    int[] out = new int[1];
+    FilterKernel.compile("brighten-luma").apply(data, composite, out, 0, 1);
+    assertEquals(data[0], out[0]);
+    FilterKernel.compile("blend-difference").apply(data, composite, out, 0, 1);
+    assertEquals(Raster.pack(9, 19, 29, 40), out[0]);
+  }
+
+  @Test
+  public void testKernelPartsDoNotDependOnName() {
+    int[] data = {Raster.pack(200, 100, 50, 255)};
+    int[] out = new int[1];
+    // "reddish" would keep only the red channel if the name were parsed
+    Filter filter = new KernelFilter("darken-value-reddish", "Darken",
+            FilterKernel.darken(FilterKernel.Measure.VALUE));
+    filter.apply(data, null, out, 0, 1);
+    assertEquals(Raster.pack(0, 0, 0, 255), out[0]);
+
+    FilterKernel.keep(FilterKernel.Channel.GREEN).apply(data, out, 0, 1);
+    assertEquals(Raster.pack(0, 100, 0, 255), out[0]);
+    FilterKernel.normal().apply(data, out, 0, 1);
+    assertEquals(data[0], out[0]);
+  }
+}
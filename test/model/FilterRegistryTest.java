@@ -0,0 +1,137 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for FilterRegistry class.
+ */
+public class FilterRegistryTest {
+
+  /**
+   * A filter that inverts every color channel, used to test plugging in new filters.
+   */
+  private static class InvertFilter implements Filter {
+    private final String name;
+
+    InvertFilter(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getLabel() {
+      return "Invert " + name;
+    }
+
+    @Override
+    public boolean isBlend() {
+      return false;
+    }
+
+    @Override
+    public void apply(int[] data, int[] composite, int[] out, int from, int to) {
+      for (int i = from; i < to; i++) {
+        out[i] = data[i] ^ 0x00FFFFFF;
+      }
+    }
+  }
+
+  @Test
+  public void testBuiltInFilters() {
+    List<Filter> filters = FilterRegistry.getFilters();
+    assertSame(BuiltInFilter.NORMAL, filters.get(0));
+    for (BuiltInFilter filter : BuiltInFilter.values()) {
+      assertSame(filter, FilterRegistry.get(filter.getName()));
+      assertSame(filter, FilterRegistry.forLabel(filter.getLabel()));
+      assertEquals(filter.getName().startsWith("blend"), filter.isBlend());
+    }
+  }
+
+  @Test
+  public void testBuiltInFilterOrder() {
+    String[] labels = {"Normal", "Brighten Value", "Brighten Intensity", "Brighten Luma",
+                       "Darken Value", "Darken Intensity", "Darken Luma",
+                       "Filter Red", "Filter Blue", "Filter Green", "Blend Difference",
+                       "Blend Multiply", "Blend Screen"};
+    List<Filter> filters = FilterRegistry.getFilters();
+    for (int i = 0; i < labels.length; i++) {
+      assertEquals(labels[i], filters.get(i).getLabel());
+    }
+  }
+
+  @Test
+  public void testBuiltInFiltersMatchKernels() {
+    int[] data = {0xFF102030, 0x80FFFFFF, 0x00000000, 0xFFC86432};
+    int[] composite = {0xFF808080, 0xFF000000, 0xFFFFFFFF, 0xFF123456};
+    for (BuiltInFilter filter : BuiltInFilter.values()) {
+      FilterKernel kernel = FilterKernel.compile(filter.getName());
+      int[] expected = new int[data.length];
+      if (filter.isBlend()) {
+        kernel.apply(data, composite, expected, 0, data.length);
+      } else {
+        kernel.apply(data, expected, 0, data.length);
+      }
+      int[] actual = new int[data.length];
+      filter.apply(data, composite, actual, 0, data.length);
+      assertArrayEquals(filter.getName(), expected, actual);
+    }
+  }
+
+  @Test
+  public void testCombinedName() {
+    Filter filter = FilterRegistry.get("brighten-luma-red");
+    assertEquals("brighten-luma-red", filter.getName());
+    assertFalse(filter.isBlend());
+    assertFalse(FilterRegistry.getFilters().contains(filter));
+
+    int[] data = {0xFF102030};
+    int[] expected = new int[1];
+    FilterKernel.compile("brighten-luma-red").apply(data, expected, 0, 1);
+    int[] actual = new int[1];
+    filter.apply(data, null, actual, 0, 1);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownName() {
+    FilterRegistry.get("invalidFilter");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownLabel() {
+    FilterRegistry.forLabel("brighten-value");
+  }
+
+  @Test
+  public void testRegisterFilter() {
+    Filter invert = new InvertFilter("invert-test");
+    FilterRegistry.register(invert);
+    assertSame(invert, FilterRegistry.get("invert-test"));
+    assertSame(invert, FilterRegistry.forLabel("Invert invert-test"));
+    assertTrue(FilterRegistry.getFilters().contains(invert));
+
+    Layer layer = new Layer("layer", 2, 2);
+    layer.setFilter("invert-test");
+    assertEquals("invert-test", layer.getFilterName());
+    assertFalse(layer.getFilter().isBlend());
+    Raster filtered = layer.getFilteredRaster(new Raster(2, 2, 0));
+    assertEquals(Raster.pack(0, 0, 0, 0), filtered.get(1, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRegisterDuplicate() {
+    FilterRegistry.register(new InvertFilter("filter-red"));
+  }
+}
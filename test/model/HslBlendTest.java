@@ -0,0 +1,71 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for HslBlend class.
+ */
+public class HslBlendTest {
+
+  /**
+   * Blends a pixel by converting it to HSL and back with RepresentationConverter, the way the
+   * multiply and screen blends were originally written.
+   */
+  private int reference(int argb, int below, boolean screen) {
+    double[] cur = RepresentationConverter.convertRGBtoHSL(Raster.red(argb), Raster.green(argb),
+            Raster.blue(argb));
+    double[] under = RepresentationConverter.convertRGBtoHSL(Raster.red(below),
+            Raster.green(below), Raster.blue(below));
+    double l = screen ? (1 - cur[2]) * (1 - under[2]) : cur[2] * under[2];
+    Pixel p = RepresentationConverter.convertHSLtoRGB(cur[0], cur[1], l);
+    return Raster.pack(p.r, p.g, p.b, Raster.alpha(argb));
+  }
+
+  /**
+   * Checks both blends of a pair of pixels against the converter.
+   */
+  private void check(int argb, int below) {
+    assertEquals(Integer.toHexString(argb) + " over " + Integer.toHexString(below),
+            reference(argb, below, false), HslBlend.multiply(argb, below));
+    assertEquals(Integer.toHexString(argb) + " over " + Integer.toHexString(below),
+            reference(argb, below, true), HslBlend.screen(argb, below));
+  }
+
+  @Test
+  public void testMatchesConverterOnRandomPixels() {
+    Random random = new Random(15);
+    for (int i = 0; i < 2_000_000; i++) {
+      check(random.nextInt(), random.nextInt());
+    }
+  }
+
+  @Test
+  public void testMatchesConverterOnGraysAndPrimaries() {
+    int[] below = {0xFF000000, 0xFFFFFFFF, 0xFF808080, 0xFF7F7F7F, 0xFFFF0000, 0xFF00FF00,
+        0xFF0000FF, 0xFF123456};
+    for (int v = 0; v < 256; v++) {
+      for (int comp : below) {
+        check(Raster.pack(v, v, v, 255), comp);
+        check(Raster.pack(v, 0, 0, 128), comp);
+        check(Raster.pack(255, v, 0, 0), comp);
+        check(Raster.pack(0, 255 - v, v, 255), comp);
+        check(comp, Raster.pack(v, v, v, 255));
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesConverterOnEveryLayerColor() {
+    // every color of the layer over a few composites, stepping through the blue channel
+    int[] below = {0xFF000000, 0xFFFFFFFF, 0xFF3C8AD2};
+    for (int rgb = 0; rgb < 1 << 24; rgb += 7) {
+      for (int comp : below) {
+        check(0xFF000000 | rgb, comp);
+      }
+    }
+  }
+}
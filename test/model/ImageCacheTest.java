@@ -0,0 +1,126 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for ImageCache class.
+ */
+public class ImageCacheTest {
+
+  /**
+   * Writes a plain PPM image of the given size where every pixel has the given gray value.
+   */
+  private static File writePpm(int width, int height, int gray) throws IOException {
+    File file = File.createTempFile("cache", ".ppm");
+    file.deleteOnExit();
+    try (PrintWriter out = new PrintWriter(file)) {
+      out.println("P3");
+      out.println(width + " " + height);
+      out.println("255");
+      for (int i = 0; i < width * height; i++) {
+        out.println(gray + " " + gray + " " + gray);
+      }
+    }
+    return file;
+  }
+
+  @Test
+  public void testReadsOnce() throws IOException {
+    ImageCache cache = new ImageCache(1 << 20);
+    File file = writePpm(3, 2, 40);
+    Raster first = cache.read(file);
+    assertEquals(2, first.getHeight());
+    assertEquals(3, first.getWidth());
+    assertEquals(Raster.pack(40, 40, 40, 255), first.get(1, 2));
+    assertSame(first, cache.read(file));
+    assertSame(first, cache.read(new File(file.getParentFile(), "./" + file.getName())));
+    assertEquals(1, cache.getCount());
+    assertEquals(24, cache.getSize());
+  }
+
+  @Test
+  public void testChangedFileIsReadAgain() throws IOException {
+    ImageCache cache = new ImageCache(1 << 20);
+    File file = writePpm(2, 2, 10);
+    Raster first = cache.read(file);
+
+    File changed = writePpm(2, 3, 200);
+    changed.renameTo(file);
+    Raster second = cache.read(file);
+    assertNotSame(first, second);
+    assertEquals(Raster.pack(200, 200, 200, 255), second.get(2, 1));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws IOException {
+    ImageCache cache = new ImageCache(2 * 16);
+    File a = writePpm(2, 2, 1);
+    File b = writePpm(2, 2, 2);
+    File c = writePpm(2, 2, 3);
+    Raster rasterA = cache.read(a);
+    Raster rasterB = cache.read(b);
+    assertSame(rasterA, cache.read(a));
+    cache.read(c);
+
+    assertEquals(2, cache.getCount());
+    assertEquals(32, cache.getSize());
+    assertSame(rasterA, cache.read(a));
+    assertNotSame(rasterB, cache.read(b));
+  }
+
+  @Test
+  public void testLargeImageNotCached() throws IOException {
+    ImageCache cache = new ImageCache(15);
+    File file = writePpm(2, 2, 5);
+    assertNotSame(cache.read(file), cache.read(file));
+    assertEquals(0, cache.getCount());
+    assertEquals(0, cache.getSize());
+
+    ImageCache off = new ImageCache(0);
+    assertNotSame(off.read(file), off.read(file));
+  }
+
+  @Test
+  public void testClear() throws IOException {
+    ImageCache cache = new ImageCache(1 << 20);
+    File file = writePpm(2, 2, 5);
+    Raster first = cache.read(file);
+    cache.clear();
+    assertEquals(0, cache.getCount());
+    assertEquals(0, cache.getSize());
+    assertNotSame(first, cache.read(file));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingFile() throws IOException {
+    new ImageCache(1 << 20).read(new File("res/missing.png"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCapacity() {
+    new ImageCache(-1);
+  }
+
+  @Test
+  public void testSharedAcrossProjects() throws IOException {
+    File file = writePpm(2, 2, 90);
+    Project first = new Project(4, 4);
+    first.addLayer("layer");
+    first.addImageToLayer("layer", file, 1, 1);
+    Project second = new Project(4, 4);
+    second.addLayer("layer");
+    second.addImageToLayer("layer", file, 0, 0);
+
+    assertSame(ImageCache.getShared().read(file), ImageCache.getShared().read(file));
+    assertEquals(Raster.pack(90, 90, 90, 255), first.layers.get("layer").getRaster().get(2, 2));
+    assertEquals(Raster.pack(90, 90, 90, 255), second.layers.get("layer").getRaster().get(1, 1));
+  }
+}
@@ -2,8 +2,13 @@ package model;
 
 import org.junit.Test;
 
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class for layer class.
@@ -31,6 +36,36 @@ public class LayerTest {
     assertEquals("brighten-value", layer.getFilterName());
   }
 
+  @Test
+  public void testAppendFilter() {
+    Layer layer = new Layer("layer", 3, 4);
+    Raster raster = layer.getRaster();
+    for (int i = 0; i < raster.getData().length; i++) {
+      raster.getData()[i] = Raster.pack(20 * i, 250 - 10 * i, 7 * i, 255);
+    }
+    layer.markChanged();
+
+    layer.appendFilter("brighten-value");
+    assertEquals("brighten-value", layer.getFilterName());
+    layer.appendFilter("filter-red");
+    assertEquals("brighten-value+filter-red", layer.getFilterName());
+    int[] filtered = layer.getFilteredRaster(new Raster(3, 4, 0)).getData();
+
+    Layer expected = new Layer("expected", 3, 4);
+    expected.updateRaster(new Raster(3, 4, raster.getData().clone()));
+    expected.addFilter("brighten-value");
+    expected.addFilter("filter-red");
+    assertArrayEquals(expected.getRaster().getData(), filtered);
+
+    layer.setFilter("Normal");
+    assertEquals("Normal", layer.getFilterName());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testAppendInvalidFilter() {
+    new Layer("layer", 3, 4).appendFilter("invalidFilter");
+  }
+
   @Test (expected = IllegalArgumentException.class)
   public void addInvalidFilter() {
     Layer layer = new Layer("layer", 500, 500);
@@ -38,4 +73,60 @@ public class LayerTest {
     layer.addFilter(layer.getFilterName());
   }
 
+  @Test
+  public void testTileTracking() {
+    Layer layer = new Layer("layer", 100, 100);
+    assertTrue(layer.isTileEmpty(0));
+    assertFalse(new Layer(100, 100).isTileEmpty(0));
+
+    int before = layer.getVersion();
+    layer.getRaster().set(70, 10, Raster.pack(0, 0, 0, 1));
+    layer.markChanged(70, 71, 10, 11);
+    assertEquals(before, layer.getTileVersion(0));
+    assertTrue(layer.getTileVersion(2) > before);
+    assertTrue(layer.isTileEmpty(0));
+    assertFalse(layer.isTileEmpty(2));
+
+    layer.setFilter("filter-red");
+    assertEquals(layer.getVersion(), layer.getTileVersion(0));
+  }
+
+  @Test
+  public void testRasterCreatedWhenNeeded() {
+    Layer layer = new Layer("layer", 100, 100);
+    layer.setFilter("darken-luma");
+    assertTrue(layer.isTileEmpty(3));
+    assertFalse(layer.isLoaded());
+    assertTrue(layer.hasDefaultPixels());
+
+    assertEquals(Raster.pack(255, 255, 255, 0), layer.getRaster().get(99, 99));
+    assertTrue(layer.isLoaded());
+    assertFalse(layer.hasDefaultPixels());
+  }
+
+  @Test
+  public void testDeferRaster() {
+    Layer layer = new Layer("layer", 10, 10);
+    int[] loads = new int[1];
+    layer.deferRaster(() -> {
+      loads[0]++;
+      return new Raster(10, 10, Raster.pack(1, 2, 3, 4));
+    });
+    assertFalse(layer.isLoaded());
+    assertEquals(0, loads[0]);
+
+    assertFalse(layer.isTileEmpty(0));
+    assertEquals(Raster.pack(1, 2, 3, 4), layer.getRaster().get(5, 5));
+    layer.getRaster();
+    assertEquals(1, loads[0]);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDeferRasterFailure() {
+    Layer layer = new Layer("layer", 10, 10);
+    layer.deferRaster(() -> {
+      throw new IOException("gone");
+    });
+    layer.getRaster();
+  }
 }
@@ -0,0 +1,137 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for MipPyramid class.
+ */
+public class MipPyramidTest {
+
+  @Test
+  public void testLevelSize() {
+    assertEquals(600, MipPyramid.levelSize(600, 0));
+    assertEquals(300, MipPyramid.levelSize(600, 1));
+    assertEquals(3, MipPyramid.levelSize(5, 1));
+    assertEquals(2, MipPyramid.levelSize(5, 2));
+    assertEquals(1, MipPyramid.levelSize(5, 10));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLevelSize() {
+    MipPyramid.levelSize(600, -1);
+  }
+
+  @Test
+  public void testLevelAveragesBlocks() {
+    Layer layer = new Layer("layer", 3, 5);
+    Raster raster = layer.getRaster();
+    raster.set(0, 0, Raster.pack(0, 0, 0, 255));
+    raster.set(0, 1, Raster.pack(100, 200, 40, 255));
+    raster.set(1, 0, Raster.pack(0, 0, 0, 255));
+    raster.set(1, 1, Raster.pack(100, 200, 40, 255));
+    // only the opaque pixel shows, so the transparent white ones do not tint it
+    raster.set(0, 2, Raster.pack(10, 20, 30, 255));
+    // the last column and row are blocks cut short by the odd size
+    raster.set(2, 4, Raster.pack(90, 90, 90, 255));
+    layer.markChanged();
+
+    MipPyramid pyramid = new MipPyramid(layer);
+    assertSame(layer, pyramid.getLevel(0));
+    Layer level = pyramid.getLevel(1);
+    assertEquals(2, level.getHeight());
+    assertEquals(3, level.getWidth());
+    assertEquals(Raster.pack(50, 100, 20, 255), level.getRaster().get(0, 0));
+    assertEquals(Raster.pack(10, 20, 30, 64), level.getRaster().get(0, 1));
+    assertEquals(Raster.pack(255, 255, 255, 0), level.getRaster().get(0, 2));
+    assertEquals(Raster.pack(90, 90, 90, 255), level.getRaster().get(1, 2));
+
+    Layer smallest = pyramid.getLevel(2);
+    assertEquals(1, smallest.getHeight());
+    assertEquals(2, smallest.getWidth());
+    assertEquals(Raster.pack(90, 90, 90, 128), smallest.getRaster().get(0, 1));
+  }
+
+  @Test
+  public void testOnlyChangedTilesAreShrunk() {
+    Layer layer = new Layer("layer", 256, 256);
+    layer.getRaster().fill(Raster.pack(10, 10, 10, 255));
+    layer.markChanged();
+    MipPyramid pyramid = new MipPyramid(layer);
+    Layer level = pyramid.getLevel(1);
+    int version = level.getVersion();
+
+    layer.getRaster().set(200, 10, Raster.pack(250, 250, 250, 255));
+    layer.markChanged(200, 201, 10, 11);
+    pyramid.getLevel(1);
+    // the changed tile of the layer covers rows 192 to 256 and columns 0 to 64, which is the
+    // tile of the level from row 64 and column 0
+    TileGrid tiles = level.getTiles();
+    for (int tile = 0; tile < tiles.getTileCount(); tile++) {
+      assertEquals(tile == 2, level.getTileVersion(tile) > version);
+    }
+    assertEquals(Raster.pack(70, 70, 70, 255), level.getRaster().get(100, 5));
+    assertEquals(Raster.pack(10, 10, 10, 255), level.getRaster().get(5, 5));
+  }
+
+  @Test
+  public void testDefaultPixelsAreNotRead() {
+    Layer bg = new Layer(300, 200);
+    MipPyramid pyramid = new MipPyramid(bg);
+    Layer level = pyramid.getLevel(3);
+    assertFalse(bg.isLoaded());
+    assertEquals(bg.getDefaultPixel(), level.getDefaultPixel());
+    assertEquals(Raster.pack(255, 255, 255, 255), level.getRaster().get(0, 0));
+    assertFalse(level.isTileEmpty(0));
+
+    // editing the layer for the first time shrinks all of it
+    bg.getRaster().set(0, 0, Raster.pack(0, 0, 0, 255));
+    bg.markChanged(0, 1, 0, 1);
+    Layer edited = pyramid.getLevel(1);
+    assertEquals(Raster.pack(191, 191, 191, 255), edited.getRaster().get(0, 0));
+    assertEquals(Raster.pack(255, 255, 255, 255), edited.getRaster().get(100, 80));
+  }
+
+  @Test
+  public void testLevelsFollowFilter() {
+    Layer layer = new Layer("layer", 8, 8);
+    MipPyramid pyramid = new MipPyramid(layer);
+    pyramid.getLevel(2);
+    layer.setFilter("darken-luma");
+    layer.appendFilter("filter-red");
+    assertEquals("darken-luma+filter-red", pyramid.getLevel(2).getFilterName());
+    assertTrue(pyramid.getLevel(1).getFilter() == layer.getFilter());
+  }
+
+  @Test
+  public void testFilterChangeDoesNotShrinkAgain() {
+    Layer layer = new Layer("layer", 128, 128);
+    layer.getRaster().fill(Raster.pack(10, 10, 10, 255));
+    layer.markChanged();
+    MipPyramid pyramid = new MipPyramid(layer);
+    Layer level = pyramid.getLevel(1);
+    int version = level.getVersion();
+
+    // a pixel edited without marking it changed is only picked up if the tile is shrunk again
+    layer.getRaster().set(0, 0, Raster.pack(250, 250, 250, 255));
+    layer.setFilter("darken-luma");
+    pyramid.getLevel(1);
+    assertEquals("darken-luma", level.getFilterName());
+    assertTrue(level.getTileVersion(0) > version);
+    assertEquals(Raster.pack(10, 10, 10, 255), level.getRaster().get(0, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLevel() {
+    new MipPyramid(new Layer("layer", 8, 8)).getLevel(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullLayer() {
+    new MipPyramid(null);
+  }
+}
@@ -0,0 +1,106 @@
+package model;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for PixelKernels class, and for the vector kernels when the JVM can run them.
+ */
+public class PixelKernelsTest {
+
+  /**
+   * Fills an array with random packed ARGB values, with a quarter of them fully transparent and
+   * a quarter fully opaque.
+   */
+  private int[] randomPixels(int length, long seed) {
+    Random random = new Random(seed);
+    int[] data = new int[length];
+    for (int i = 0; i < length; i++) {
+      int argb = random.nextInt();
+      switch (random.nextInt(4)) {
+        case 0:
+          argb &= 0x00FFFFFF;
+          break;
+        case 1:
+          argb |= 0xFF000000;
+          break;
+        default:
+          break;
+      }
+      data[i] = argb;
+    }
+    return data;
+  }
+
+  @Test
+  public void testPlaceOver() {
+    int[] below = {0xFF000000, 0xFF102030, 0x40FFFFFF, 0xFF808080};
+    int[] layer = {0x00FFFFFF, 0xFF405060, 0x80000000, 0x7FFF0000};
+    int[] out = new int[4];
+    new PixelKernels().placeOver(below, layer, out, 0, 4);
+    assertEquals(0xFF000000, out[0]);
+    assertEquals(0xFF405060, out[1]);
+    assertEquals(Raster.pack(127, 127, 127, 128), out[2]);
+    assertEquals(Raster.pack(191, 64, 64, 255), out[3]);
+  }
+
+  @Test
+  public void testOverMatchesPlaceOver() {
+    int[] below = randomPixels(1000, 3);
+    int[] layer = randomPixels(1000, 4);
+    int[] out = new int[1000];
+    new PixelKernels().placeOver(below, layer, out, 0, 1000);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(out[i], PixelKernels.over(below[i], layer[i]));
+    }
+  }
+
+  @Test
+  public void testDifference() {
+    int[] data = {0x80FF8010, 0xFF000000};
+    int[] composite = {0xFF10FF08, 0x00FFFFFF};
+    int[] out = new int[2];
+    new PixelKernels().difference(data, composite, out, 0, 2);
+    assertArrayEquals(new int[]{Raster.pack(0xEF, 0, 8, 0x80), 0xFF000000}, out);
+  }
+
+  @Test
+  public void testVectorKernelsMatchScalar() {
+    PixelKernels vector = PixelKernels.loadVector();
+    Assume.assumeNotNull(vector);
+    PixelKernels scalar = new PixelKernels();
+
+    int[] below = randomPixels(10_000, 1);
+    int[] layer = randomPixels(10_000, 2);
+    int[][] ranges = {{0, 10_000}, {3, 9_998}, {17, 18}, {40, 40}, {5, 70}};
+    for (int[] range : ranges) {
+      int[] expected = new int[below.length];
+      int[] actual = new int[below.length];
+      scalar.placeOver(below, layer, expected, range[0], range[1]);
+      vector.placeOver(below, layer, actual, range[0], range[1]);
+      assertArrayEquals(expected, actual);
+
+      // pixels over themselves mix to whole numbers, where doubles and integers can disagree
+      int[] same = below.clone();
+      for (int i = 0; i < same.length; i++) {
+        same[i] = (same[i] & 0x00FFFFFF) | (1 + i % 254) << 24;
+      }
+      expected = below.clone();
+      actual = below.clone();
+      scalar.placeOver(expected, same, expected, range[0], range[1]);
+      vector.placeOver(actual, same, actual, range[0], range[1]);
+      assertArrayEquals(expected, actual);
+
+      expected = new int[below.length];
+      actual = new int[below.length];
+      scalar.difference(layer, below, expected, range[0], range[1]);
+      vector.difference(layer, below, actual, range[0], range[1]);
+      assertArrayEquals(expected, actual);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for PpmCodec class.
+ */
+public class PpmCodecTest {
+
+  /**
+   * Creates a raster of opaque pixels with random colors.
+   */
+  private Raster randomRaster(int height, int width) {
+    Random random = new Random(7);
+    Raster raster = new Raster(height, width, 0);
+    for (int i = 0; i < raster.getData().length; i++) {
+      raster.getData()[i] = 0xFF000000 | random.nextInt(1 << 24);
+    }
+    return raster;
+  }
+
+  @Test
+  public void testRawRoundTrip() throws IOException {
+    // large enough that reading and writing both cross the buffer boundary
+    Raster raster = randomRaster(173, 211);
+    File file = File.createTempFile("codec", ".ppm");
+    try {
+      PpmCodec.writeRaw(raster, file);
+      assertTrue(PpmCodec.isRaw(file));
+      assertEquals(("P6\n211 173\n255\n").length() + 173 * 211 * 3, file.length());
+
+      Raster read = PpmCodec.readRaw(file);
+      assertEquals(173, read.getHeight());
+      assertEquals(211, read.getWidth());
+      assertArrayEquals(raster.getData(), read.getData());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testPlainWriteMatchesImageReader() throws IOException {
+    Raster raster = randomRaster(20, 30);
+    File file = File.createTempFile("codec", ".ppm");
+    try {
+      PpmCodec.writePlain(raster, file);
+      assertFalse(PpmCodec.isRaw(file));
+
+      Image image = new Image(file);
+      image.readImage();
+      assertArrayEquals(raster.getData(), image.getRaster().getData());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testImageReadsRawFiles() throws IOException {
+    Raster raster = randomRaster(15, 9);
+    File file = File.createTempFile("codec", ".ppm");
+    try {
+      PpmCodec.writeRaw(raster, file);
+      Image image = new Image(file);
+      image.readImage();
+      assertArrayEquals(raster.getData(), image.getRaster().getData());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testRawHeaderComments() throws IOException {
+    File file = File.createTempFile("codec", ".ppm");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write("P6\n# made by hand\n2 1\n# max\n255\n".getBytes(StandardCharsets.US_ASCII));
+      out.write(new byte[] {10, 20, 30, (byte) 200, (byte) 210, (byte) 220});
+    }
+    try {
+      Raster read = PpmCodec.readRaw(file);
+      assertEquals(Raster.pack(10, 20, 30, 255), read.get(0, 0));
+      assertEquals(Raster.pack(200, 210, 220, 255), read.get(0, 1));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testRawScalesMaxValue() throws IOException {
+    File file = File.createTempFile("codec", ".ppm");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write("P6 1 2 65535\n".getBytes(StandardCharsets.US_ASCII));
+      out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, 0, 0, (byte) 0x80, 0,
+          0, 0, (byte) 0xFF, (byte) 0xFF, 0, 0});
+    }
+    try {
+      Raster read = PpmCodec.readRaw(file);
+      assertEquals(Raster.pack(255, 0, 128, 255), read.get(0, 0));
+      assertEquals(Raster.pack(0, 255, 0, 255), read.get(1, 0));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testPlainAndRawReadTheSame() throws IOException {
+    File plain = File.createTempFile("codec", ".ppm");
+    File raw = File.createTempFile("codec", ".ppm");
+    try {
+      // the same two pixels with a maximum value of 15, and again with 65535
+      Files.write(plain.toPath(), "P3\n2 1\n15\n15 0 7  3 12 1\n"
+              .getBytes(StandardCharsets.US_ASCII));
+      try (FileOutputStream out = new FileOutputStream(raw)) {
+        out.write("P6\n2 1\n15\n".getBytes(StandardCharsets.US_ASCII));
+        out.write(new byte[] {15, 0, 7, 3, 12, 1});
+      }
+      Image image = new Image(plain);
+      image.readImage();
+      Raster read = PpmCodec.readRaw(raw);
+      assertEquals(Raster.pack(255, 0, 119, 255), read.get(0, 0));
+      assertArrayEquals(read.getData(), image.getRaster().getData());
+
+      Files.write(plain.toPath(), "P3\n2 1\n65535\n65535 0 32768  0 65535 257\n"
+              .getBytes(StandardCharsets.US_ASCII));
+      try (FileOutputStream out = new FileOutputStream(raw)) {
+        out.write("P6\n2 1\n65535\n".getBytes(StandardCharsets.US_ASCII));
+        out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, 0, 0, (byte) 0x80, 0,
+            0, 0, (byte) 0xFF, (byte) 0xFF, 1, 1});
+      }
+      image = new Image(plain);
+      image.readImage();
+      read = PpmCodec.readRaw(raw);
+      assertEquals(Raster.pack(0, 255, 1, 255), read.get(0, 1));
+      assertArrayEquals(read.getData(), image.getRaster().getData());
+    } finally {
+      plain.delete();
+      raw.delete();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testPlainMaxValueOutOfRange() throws IOException {
+    File file = File.createTempFile("codec", ".ppm");
+    try {
+      Files.write(file.toPath(), "P3\n1 1\n0\n0 0 0\n".getBytes(StandardCharsets.US_ASCII));
+      new Image(file).readImage();
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testRawTruncated() throws IOException {
+    File file = File.createTempFile("codec", ".ppm");
+    try {
+      Files.write(file.toPath(), "P6\n4 4\n255\nabc".getBytes(StandardCharsets.US_ASCII));
+      PpmCodec.readRaw(file);
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for ProjectCodec class.
+ */
+public class ProjectCodecTest {
+
+  /**
+   * Creates a project with a background and two layers, one with random pixels and a filter.
+   */
+  private Project sampleProject() {
+    Project project = new Project(70, 90);
+    project.addLayer("photo");
+    project.addLayer("empty");
+    Random random = new Random(3);
+    Raster raster = new Raster(70, 90, 0);
+    for (int i = 0; i < raster.getData().length; i++) {
+      raster.getData()[i] = random.nextInt();
+    }
+    project.layers.get("photo").updateRaster(raster);
+    project.setFilter("photo", "brighten-luma");
+    return project;
+  }
+
+  @Test
+  public void testFilterStackRoundTrip() throws IOException {
+    Project project = sampleProject();
+    project.appendFilter("photo", "filter-green");
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      Project read = ProjectCodec.readBinary(file);
+      assertEquals("brighten-luma+filter-green", read.layers.get("photo").getFilterName());
+      assertArrayEquals(project.layersToImage().getData(), read.layersToImage().getData());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testScalesOtherMaximumValue() throws IOException {
+    Project project = new Project(1, 2);
+    project.addLayer("layer");
+    Raster raster = new Raster(1, 2, Raster.pack(100, 50, 0, 100));
+    project.layers.get("layer").updateRaster(raster);
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      try (RandomAccessFile patch = new RandomAccessFile(file, "rw")) {
+        // the maximum value follows the magic bytes, version, width and height
+        patch.seek(16);
+        assertEquals(255, patch.readInt());
+        patch.seek(16);
+        patch.writeInt(100);
+      }
+      Project read = ProjectCodec.readBinary(file);
+      assertEquals(Raster.pack(255, 128, 0, 255),
+              read.layers.get("layer").getRaster().get(0, 1));
+
+      ProjectCodec.writeBinary(read, file);
+      try (RandomAccessFile check = new RandomAccessFile(file, "r")) {
+        check.seek(16);
+        assertEquals(255, check.readInt());
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Project project = sampleProject();
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      assertTrue(ProjectCodec.isBinary(file));
+
+      Project read = ProjectCodec.readBinary(file);
+      assertEquals(70, read.getCanvasHeight());
+      assertEquals(90, read.getCanvasWidth());
+      assertEquals(new ArrayList<>(project.layers.keySet()),
+              new ArrayList<>(read.layers.keySet()));
+      for (String name : project.layers.keySet()) {
+        Layer expected = project.layers.get(name);
+        Layer actual = read.layers.get(name);
+        assertEquals(expected.getFilterName(), actual.getFilterName());
+        assertArrayEquals(expected.getRaster().getData(), actual.getRaster().getData());
+      }
+      assertArrayEquals(project.layersToImage().getData(), read.layersToImage().getData());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testBlankLayersCompress() throws IOException {
+    Project project = new Project(500, 500);
+    project.addLayer("one");
+    project.addLayer("two");
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      // three layers of 250,000 pixels each take up 3MB uncompressed
+      assertTrue(file.length() < 20000);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testModelDetectsFormat() throws IOException {
+    CollageModelImpl model = new CollageModelImpl();
+    model.newProject(20, 30);
+    model.addLayer("top");
+    model.setFilter("top", "filter-red");
+    File text = File.createTempFile("project", ".clg");
+    File binary = File.createTempFile("project", ".clg");
+    try {
+      model.saveProject(text);
+      model.setProjectFormat("binary");
+      model.saveProject(binary);
+      assertFalse(ProjectCodec.isBinary(text));
+      assertTrue(ProjectCodec.isBinary(binary));
+      assertTrue(binary.length() < text.length());
+
+      List<String> layers = new ArrayList<>();
+      layers.add("top");
+      model.load(binary);
+      assertEquals(layers, model.getLayersOfLoadedProject());
+      model.load(text);
+      assertEquals(layers, model.getLayersOfLoadedProject());
+    } finally {
+      text.delete();
+      binary.delete();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownProjectFormat() {
+    new CollageModelImpl().setProjectFormat("xml");
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedFile() throws IOException {
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(sampleProject(), file);
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(raf.length() - 100);
+      }
+      ProjectCodec.readBinary(file);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testLayersLoadLazily() throws IOException {
+    Project project = sampleProject();
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      Project read = ProjectCodec.readBinary(file);
+      for (Layer layer : read.layers.values()) {
+        assertFalse(layer.isLoaded());
+      }
+      assertTrue(read.layers.get("empty").hasDefaultPixels());
+      assertFalse(read.layers.get("photo").hasDefaultPixels());
+
+      assertArrayEquals(project.layersToImage().getData(), read.layersToImage().getData());
+      assertTrue(read.layers.get("photo").isLoaded());
+      // an untouched layer is transparent everywhere, so rendering never needs its pixels
+      assertFalse(read.layers.get("empty").isLoaded());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testSaveOverLoadedFile() throws IOException {
+    Project project = sampleProject();
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      CollageModelImpl model = new CollageModelImpl();
+      model.setProjectFormat("binary");
+      model.load(file);
+      // the loaded layers are read from the file being replaced
+      model.saveProject(file);
+
+      Project read = ProjectCodec.readBinary(file);
+      assertEquals("brighten-luma", read.layers.get("photo").getFilterName());
+      assertArrayEquals(project.layers.get("photo").getRaster().getData(),
+              read.layers.get("photo").getRaster().getData());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testSaveOverFileBeforeLayersAreRead() throws IOException {
+    Project project = sampleProject();
+    File file = File.createTempFile("project", ".clg");
+    try {
+      ProjectCodec.writeBinary(project, file);
+      Project read = ProjectCodec.readBinary(file);
+      assertFalse(read.layers.get("photo").isLoaded());
+      // the file is truncated before the layer is first read, so its pixels must not come from it
+      ProjectCodec.writeBinary(read, file);
+      assertArrayEquals(project.layers.get("photo").getRaster().getData(),
+              read.layers.get("photo").getRaster().getData());
+      assertArrayEquals(project.layersToImage().getData(),
+              ProjectCodec.readBinary(file).layersToImage().getData());
+    } finally {
+      file.delete();
+    }
+  }
+}
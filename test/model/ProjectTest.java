@@ -2,8 +2,12 @@ package model;
 
 import org.junit.Test;
 
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -49,6 +53,25 @@ public class ProjectTest {
     }
   }
 
+  @Test
+  public void testAddImageToLayerWithNegativeOffset() throws IOException {
+    File file = File.createTempFile("negative", ".ppm");
+    file.deleteOnExit();
+    try (PrintWriter out = new PrintWriter(file)) {
+      out.println("P3 3 2 255");
+      out.println("1 1 1 2 2 2 3 3 3");
+      out.println("4 4 4 5 5 5 6 6 6");
+    }
+    Project project = new Project(4, 4);
+    project.addLayer("Layer1");
+    project.addImageToLayer("Layer1", file, -1, -2);
+
+    Raster raster = project.layers.get("Layer1").getRaster();
+    assertEquals(Raster.pack(6, 6, 6, 255), raster.get(0, 0));
+    assertEquals(Raster.pack(255, 255, 255, 0), raster.get(0, 1));
+    assertEquals(Raster.pack(255, 255, 255, 0), raster.get(1, 0));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testAddImageToLayerWithInvalidLayer() throws IOException {
     Project project = new Project(500, 500);
@@ -74,4 +97,49 @@ public class ProjectTest {
     Project project = new Project(500, 500);
     project.setFilter("InvalidLayer", "darken-luma");
   }
+
+  @Test
+  public void testLayersToImageAtLevel() {
+    Project project = new Project(5, 6);
+    project.addLayer("layer");
+    Layer layer = project.layers.get("layer");
+    for (int row = 0; row < 2; row++) {
+      for (int col = 0; col < 2; col++) {
+        layer.getRaster().set(row, col, Raster.pack(200, 100, 0, 255));
+      }
+    }
+    layer.markChanged(0, 2, 0, 2);
+
+    assertEquals(3, project.getCanvasHeight(1));
+    assertEquals(3, project.getCanvasWidth(1));
+    Raster preview = project.layersToImage(1);
+    assertEquals(3, preview.getHeight());
+    assertEquals(Raster.pack(200, 100, 0, 255), preview.get(0, 0));
+    assertEquals(Raster.pack(255, 255, 255, 255), preview.get(2, 2));
+
+    project.setFilter("layer", "filter-red");
+    assertEquals(Raster.pack(200, 0, 0, 255), project.layersToImage(1).get(0, 0));
+    assertEquals(Raster.pack(200, 0, 0, 255), project.layersToImage(0).get(1, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUpdateCollageImageAtLevelWrongSize() {
+    Project project = new Project(5, 6);
+    project.updateCollageImage(new BufferedImage(6, 5, BufferedImage.TYPE_INT_ARGB),
+            new Rectangle(0, 0, 6, 5), 1);
+  }
+
+  @Test
+  public void testWriteToCollageFormat() throws IOException {
+    Project project = new Project(1, 2);
+    project.addLayer("Layer1");
+    project.setFilter("Layer1", "filter-red");
+    project.layers.get("Layer1").getRaster().set(0, 1, Raster.pack(1, 2, 3, 4));
+
+    StringWriter out = new StringWriter();
+    project.writeToCollageFormat(out);
+    assertEquals("C1\n2 1\n255\n"
+            + "bg Normal\n255 255 255 255 255 255 255 255 \n"
+            + "Layer1 filter-red\n255 255 255 0 1 2 3 4 \n", out.toString());
+  }
 }
@@ -0,0 +1,113 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Test class for raster class.
+ */
+public class RasterTest {
+
+  @Test
+  public void testPackAndUnpack() {
+    int argb = Raster.pack(10, 20, 30, 40);
+    assertEquals(10, Raster.red(argb));
+    assertEquals(20, Raster.green(argb));
+    assertEquals(30, Raster.blue(argb));
+    assertEquals(40, Raster.alpha(argb));
+    assertEquals(0xFFFFFFFF, Raster.pack(255, 255, 255, 255));
+  }
+
+  @Test
+  public void testScale() {
+    assertEquals(200, Raster.scale(200, 255));
+    assertEquals(255, Raster.scale(100, 100));
+    assertEquals(128, Raster.scale(50, 100));
+    assertEquals(255, Raster.scale(65535, 65535));
+    assertEquals(0, Raster.scale(0, 7));
+
+    Raster raster = new Raster(1, 1, Raster.pack(10, 5, 0, 10));
+    raster.scaleComponents(10);
+    assertEquals(Raster.pack(255, 128, 0, 255), raster.get(0, 0));
+  }
+
+  @Test
+  public void testPackClamping() {
+    int argb = Raster.pack(300, -50, 255, 500);
+    assertEquals(255, Raster.red(argb));
+    assertEquals(0, Raster.green(argb));
+    assertEquals(255, Raster.blue(argb));
+    assertEquals(255, Raster.alpha(argb));
+  }
+
+  @Test
+  public void testGetAndSetAreRowMajor() {
+    Raster raster = new Raster(2, 3, 0);
+    raster.set(1, 2, Raster.pack(1, 2, 3, 4));
+    assertEquals(Raster.pack(1, 2, 3, 4), raster.getData()[5]);
+    assertEquals(Raster.pack(1, 2, 3, 4), raster.get(1, 2));
+    assertEquals(0, raster.get(0, 2));
+  }
+
+  @Test
+  public void testCopyDoesNotShareData() {
+    Raster raster = new Raster(2, 2, Raster.pack(255, 255, 255, 0));
+    Raster copy = raster.copy();
+    assertNotSame(raster.getData(), copy.getData());
+    copy.set(0, 0, 0);
+    assertEquals(Raster.pack(255, 255, 255, 0), raster.get(0, 0));
+  }
+
+  @Test
+  public void testPixelConversion() {
+    Raster raster = new Raster(2, 2, Raster.pack(1, 2, 3, 4));
+    raster.set(1, 0, Raster.pack(5, 6, 7, 8));
+    Pixel[][] pixels = raster.toPixels();
+    assertEquals(5, pixels[1][0].r);
+    assertEquals(8, pixels[1][0].a);
+    assertArrayEquals(raster.getData(), Raster.fromPixels(pixels).getData());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMismatchedData() {
+    new Raster(2, 2, new int[3]);
+  }
+
+  @Test
+  public void testPasteMatchesPerPixelCopy() {
+    Raster source = new Raster(3, 4, 0);
+    for (int i = 0; i < source.getData().length; i++) {
+      source.getData()[i] = Raster.pack(i, 2 * i, 3 * i, 255);
+    }
+    for (int row = -5; row <= 7; row++) {
+      for (int col = -6; col <= 8; col++) {
+        Raster expected = new Raster(5, 6, 7);
+        for (int i = 0; i < source.getHeight(); i++) {
+          for (int j = 0; j < source.getWidth(); j++) {
+            if (i + row >= 0 && i + row < 5 && j + col >= 0 && j + col < 6) {
+              expected.set(i + row, j + col, source.get(i, j));
+            }
+          }
+        }
+        Raster actual = new Raster(5, 6, 7);
+        actual.paste(source, row, col);
+        assertArrayEquals(row + ", " + col, expected.getData(), actual.getData());
+      }
+    }
+  }
+
+  @Test
+  public void testPasteLargerThanTarget() {
+    Raster source = new Raster(10, 10, Raster.pack(1, 2, 3, 4));
+    Raster target = new Raster(2, 3, 0);
+    target.paste(source, -4, -4);
+    for (int value : target.getData()) {
+      assertEquals(Raster.pack(1, 2, 3, 4), value);
+    }
+    target.paste(new Raster(1, 1, 0), Integer.MAX_VALUE, Integer.MIN_VALUE);
+    assertEquals(Raster.pack(1, 2, 3, 4), target.get(0, 0));
+  }
+}
@@ -0,0 +1,64 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for render pool class.
+ */
+public class RenderPoolTest {
+
+  /**
+   * Checks that the pool runs the task over every row exactly once.
+   */
+  private void assertEveryRowOnce(RenderPool pool, int rows, int rowLength) {
+    AtomicIntegerArray counts = new AtomicIntegerArray(rows);
+    pool.forEachBand(rows, rowLength, (fromRow, toRow) -> {
+      for (int i = fromRow; i < toRow; i++) {
+        counts.incrementAndGet(i);
+      }
+    });
+    for (int i = 0; i < rows; i++) {
+      assertEquals(1, counts.get(i));
+    }
+  }
+
+  @Test
+  public void testParallelBandsCoverEveryRow() {
+    RenderPool pool = new RenderPool(4);
+    assertEquals(4, pool.getParallelism());
+    assertEveryRowOnce(pool, 1000, 1000);
+    assertEveryRowOnce(pool, 3, 100000);
+    assertEveryRowOnce(pool, 1, 100000);
+  }
+
+  @Test
+  public void testSequentialPoolRunsOnCallingThread() {
+    RenderPool pool = new RenderPool(1);
+    Thread caller = Thread.currentThread();
+    int[] calls = new int[1];
+    pool.forEachBand(1000, 1000, (fromRow, toRow) -> {
+      assertEquals(caller, Thread.currentThread());
+      assertEquals(0, fromRow);
+      assertEquals(1000, toRow);
+      calls[0]++;
+    });
+    assertEquals(1, calls[0]);
+    assertEveryRowOnce(pool, 1000, 1000);
+  }
+
+  @Test
+  public void testSmallAreaIsNotSplit() {
+    int[] calls = new int[1];
+    new RenderPool(8).forEachBand(10, 10, (fromRow, toRow) -> calls[0]++);
+    assertEquals(1, calls[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    new RenderPool(0);
+  }
+}
@@ -0,0 +1,72 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for TextTokenizer class.
+ */
+public class TextTokenizerTest {
+
+  /**
+   * Writes the given text to a temporary file.
+   */
+  private File write(String text) throws IOException {
+    File file = File.createTempFile("tokens", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+
+  @Test
+  public void testTokensAndComments() throws IOException {
+    File file = write("# header comment\nP3 # inline comment\n  3\t2\r\n255\nname#1 -7\n#");
+    try (TextTokenizer tokens = new TextTokenizer(file)) {
+      assertEquals("P3", tokens.next());
+      assertTrue(tokens.hasNextInt());
+      assertEquals(3, tokens.nextInt());
+      assertEquals(2, tokens.nextInt());
+      assertEquals(255, tokens.nextInt());
+      assertFalse(tokens.hasNextInt());
+      assertEquals("name#1", tokens.next());
+      assertEquals(-7, tokens.nextInt());
+      assertFalse(tokens.hasNext());
+    }
+  }
+
+  @Test
+  public void testNumbersAcrossBufferBoundary() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 30000; i++) {
+      text.append(i).append(i % 7 == 0 ? "\n" : " ");
+    }
+    try (TextTokenizer tokens = new TextTokenizer(write(text.toString()))) {
+      for (int i = 0; i < 30000; i++) {
+        assertEquals(i, tokens.nextInt());
+      }
+      assertFalse(tokens.hasNext());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotANumber() throws IOException {
+    try (TextTokenizer tokens = new TextTokenizer(write("12a"))) {
+      tokens.nextInt();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testEndOfFile() throws IOException {
+    try (TextTokenizer tokens = new TextTokenizer(write("  # only a comment"))) {
+      tokens.nextInt();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for tile grid class.
+ */
+public class TileGridTest {
+
+  @Test
+  public void testTileBounds() {
+    TileGrid grid = new TileGrid(100, 150, 64);
+    assertEquals(2, grid.getTilesDown());
+    assertEquals(3, grid.getTilesAcross());
+    assertEquals(6, grid.getTileCount());
+    assertEquals(64, grid.getRowStart(5));
+    assertEquals(100, grid.getRowEnd(5));
+    assertEquals(128, grid.getColStart(5));
+    assertEquals(150, grid.getColEnd(5));
+    assertEquals(0, grid.getRowStart(1));
+    assertEquals(64, grid.getColStart(1));
+  }
+
+  @Test
+  public void testForEachTileIn() {
+    TileGrid grid = new TileGrid(100, 150, 64);
+    List<Integer> found = new ArrayList<>();
+    grid.forEachTileIn(60, 70, 60, 130, found::add);
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), found);
+
+    found.clear();
+    grid.forEachTileIn(-10, 5, 140, 500, found::add);
+    assertEquals(Arrays.asList(2), found);
+
+    found.clear();
+    grid.forEachTileIn(100, 200, 0, 10, found::add);
+    assertTrue(found.isEmpty());
+  }
+
+  @Test
+  public void testEmptyCanvas() {
+    assertEquals(0, new TileGrid(0, 0).getTileCount());
+  }
+}
@@ -0,0 +1,104 @@
+package view;
+
+import org.junit.Test;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import javax.swing.JPanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for ImageCanvas.
+ */
+public class ImageCanvasTest {
+
+  @Test
+  public void testPreferredSizeFollowsImage() {
+    ImageCanvas canvas = new ImageCanvas();
+    assertNull(canvas.getImage());
+    assertEquals(new Dimension(0, 0), canvas.getPreferredSize());
+
+    BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_ARGB);
+    canvas.setImage(image);
+    assertSame(image, canvas.getImage());
+    assertEquals(new Dimension(40, 30), canvas.getPreferredSize());
+  }
+
+  @Test
+  public void testScaledImage() {
+    BufferedImage image = new BufferedImage(2, 3, BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(1, 2, 0xFF445566);
+    ImageCanvas canvas = new ImageCanvas();
+    canvas.setImage(image, 4);
+    assertEquals(4, canvas.getScale());
+    assertEquals(new Dimension(8, 12), canvas.getPreferredSize());
+    canvas.setSize(canvas.getPreferredSize());
+
+    BufferedImage target = new BufferedImage(8, 12, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = target.createGraphics();
+    canvas.paint(g);
+    g.dispose();
+    assertEquals(0xFF445566, target.getRGB(4, 8));
+    assertEquals(0xFF445566, target.getRGB(7, 11));
+    assertEquals(0, target.getRGB(3, 8));
+
+    canvas.setImage(image);
+    assertEquals(1, canvas.getScale());
+    assertEquals(new Dimension(2, 3), canvas.getPreferredSize());
+  }
+
+  @Test
+  public void testVisibleImageAreaIsInImagePixels() {
+    ImageCanvas canvas = new ImageCanvas();
+    assertNull(canvas.getVisibleImageArea());
+
+    canvas.setImage(new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB), 4);
+    canvas.setSize(canvas.getPreferredSize());
+    // a parent smaller than the canvas shows columns 10 to 49 and rows 6 to 25 of the canvas
+    JPanel parent = new JPanel(null);
+    parent.setSize(40, 20);
+    parent.add(canvas);
+    canvas.setLocation(-10, -6);
+    assertEquals(new Rectangle(10, 6, 40, 20), canvas.getVisibleRect());
+    // every image pixel even partly on screen is taken in
+    assertEquals(new Rectangle(2, 1, 11, 6), canvas.getVisibleImageArea());
+
+    canvas.setLocation(-70, -30);
+    assertEquals(new Rectangle(17, 7, 3, 3), canvas.getVisibleImageArea());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScaleBelowOne() {
+    new ImageCanvas().setImage(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), 0);
+  }
+
+  @Test
+  public void testPaintsOnlyClippedArea() {
+    BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+    for (int row = 0; row < 4; row++) {
+      for (int col = 0; col < 4; col++) {
+        image.setRGB(col, row, 0xFF112233);
+      }
+    }
+    ImageCanvas canvas = new ImageCanvas();
+    canvas.setImage(image);
+    canvas.setSize(canvas.getPreferredSize());
+    canvas.repaintAreas(List.of(new Rectangle(1, 1, 2, 2)));
+
+    BufferedImage target = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = target.createGraphics();
+    g.setClip(1, 1, 2, 2);
+    canvas.paint(g);
+    g.dispose();
+    assertEquals(0xFF112233, target.getRGB(1, 2));
+    assertEquals(0, target.getRGB(0, 0));
+    assertEquals(0, target.getRGB(3, 3));
+  }
+}
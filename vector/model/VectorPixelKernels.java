@@ -0,0 +1,120 @@
+package model;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The compositing and difference loops written with the incubating Vector API, processing as
+ * many pixels per iteration as the CPU's widest vectors hold. Pixels left over at the end of a
+ * range are processed by the scalar loops.
+ * <p></p>
+ * Compositing mixes colors in integers. The scalar loop computes each channel as
+ * below * (1 - alpha) + layer * alpha in doubles and rounds down, which is the integer
+ * n / 255 for n = below * (255 - layerAlpha) + layer * layerAlpha. When n is not a multiple of
+ * 255 the exact result is at least 1/255 away from a whole number, so floating point error can
+ * never change how it rounds and integer division gives the same answer. When n is a multiple
+ * of 255 and the layer is partly transparent, the double result may land just below the whole
+ * number, so those pixels are composited again by the scalar loop. Either way the
+ * results are exactly those of the scalar loop.
+ * <p></p>
+ * This class needs Java 17 or later and the jdk.incubator.vector module, and is only ever loaded
+ * through {@link PixelKernels#getShared()}.
+ */
+public class VectorPixelKernels extends PixelKernels {
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * Constructor to create the VectorPixelKernels.
+   */
+  protected VectorPixelKernels() {
+  }
+
+  @Override
+  protected String getName() {
+    return "vector";
+  }
+
+  @Override
+  protected void placeOver(int[] below, int[] layer, int[] out, int from, int to) {
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector layerPixels = IntVector.fromArray(INTS, layer, i);
+      IntVector belowPixels = IntVector.fromArray(INTS, below, i);
+      IntVector layerAlpha = layerPixels.lanewise(VectorOperators.LSHR, 24);
+      if (layerAlpha.eq(0).allTrue()) {
+        belowPixels.intoArray(out, i);
+        continue;
+      }
+
+      IntVector rest = layerAlpha.neg().add(255);
+      IntVector rSum = weighted(belowPixels, layerPixels, 16, layerAlpha, rest);
+      IntVector gSum = weighted(belowPixels, layerPixels, 8, layerAlpha, rest);
+      IntVector bSum = weighted(belowPixels, layerPixels, 0, layerAlpha, rest);
+      IntVector r = divide(rSum);
+      IntVector g = divide(gSum);
+      IntVector b = divide(bSum);
+      VectorMask<Integer> whole = rSum.eq(r.mul(255)).or(gSum.eq(g.mul(255)))
+              .or(bSum.eq(b.mul(255)));
+      VectorMask<Integer> partial = layerAlpha.compare(VectorOperators.NE, 0)
+              .and(layerAlpha.compare(VectorOperators.NE, 255));
+      IntVector a = belowPixels.lanewise(VectorOperators.LSHR, 24).max(layerAlpha);
+      a.lanewise(VectorOperators.LSHL, 24)
+              .or(r.lanewise(VectorOperators.LSHL, 16))
+              .or(g.lanewise(VectorOperators.LSHL, 8))
+              .or(b)
+              .intoArray(out, i);
+
+      long redo = whole.and(partial).toLong();
+      while (redo != 0) {
+        int lane = Long.numberOfTrailingZeros(redo);
+        out[i + lane] = over(belowPixels.lane(lane), layerPixels.lane(lane));
+        redo &= redo - 1;
+      }
+    }
+    super.placeOver(below, layer, out, i, to);
+  }
+
+  @Override
+  protected void difference(int[] data, int[] composite, int[] out, int from, int to) {
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector pixels = IntVector.fromArray(INTS, data, i);
+      IntVector comp = IntVector.fromArray(INTS, composite, i);
+      IntVector r = channel(pixels, 16).sub(channel(comp, 16)).max(0);
+      IntVector g = channel(pixels, 8).sub(channel(comp, 8)).max(0);
+      IntVector b = channel(pixels, 0).sub(channel(comp, 0)).max(0);
+      pixels.and(0xFF000000)
+              .or(r.lanewise(VectorOperators.LSHL, 16))
+              .or(g.lanewise(VectorOperators.LSHL, 8))
+              .or(b)
+              .intoArray(out, i);
+    }
+    super.difference(data, composite, out, i, to);
+  }
+
+  /**
+   * Returns below * (255 - layerAlpha) + layer * layerAlpha for one color channel, which is at
+   * most 255 * 255.
+   */
+  private static IntVector weighted(IntVector below, IntVector layer, int shift,
+                                    IntVector layerAlpha, IntVector rest) {
+    return channel(below, shift).mul(rest).add(channel(layer, shift).mul(layerAlpha));
+  }
+
+  /**
+   * Divides sums of up to 255 * 255 by 255, rounding down. Multiplying by 0x8081 and shifting
+   * right by 23 is exact over that whole range.
+   */
+  private static IntVector divide(IntVector sums) {
+    return sums.mul(0x8081).lanewise(VectorOperators.LSHR, 23);
+  }
+
+  /**
+   * Extracts one 8-bit color channel from packed ARGB values.
+   */
+  private static IntVector channel(IntVector pixels, int shift) {
+    return pixels.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+  }
+}